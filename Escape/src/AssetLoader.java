@@ -0,0 +1,136 @@
+/**
+ * Loads images and other files on a small pool of background threads so
+ * that several files are decoded at the same time
+ * Also keeps track of how long each phase of starting the game took
+ * (printed with -Descape.startupReport=true)
+ * @author agent
+ * @version October 18, 2026
+ */
+
+import java.awt.Image;
+import java.util.ArrayList;
+import java.util.concurrent.*;
+
+public class AssetLoader
+{
+	private final ExecutorService executor;
+	private final ConcurrentHashMap<String, Future<Image>> images =
+			new ConcurrentHashMap<String, Future<Image>>();
+
+	// Startup phases and when they were reached
+	private final long start = System.nanoTime();
+	private final ArrayList<String> phases = new ArrayList<String>();
+	private final ArrayList<Long> phaseTimes = new ArrayList<Long>();
+
+	/**
+	 * Creates a loader with one thread per processor (between 2 and 4)
+	 */
+	public AssetLoader()
+	{
+		int threads = Math.max(2, Math.min(4, Runtime.getRuntime()
+				.availableProcessors()));
+		executor = Executors.newFixedThreadPool(threads, new ThreadFactory()
+		{
+			public Thread newThread(Runnable task)
+			{
+				// Loading should never keep the game from closing
+				Thread thread = new Thread(task, "Asset loader");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Starts loading an image in the background if it is not loading yet
+	 * @param path the path of the image file
+	 * @return the pending image
+	 */
+	public Future<Image> preload(final String path)
+	{
+		Future<Image> image = images.get(path);
+		if (image == null)
+		{
+			FutureTask<Image> task = new FutureTask<Image>(
+					new Callable<Image>()
+					{
+						public Image call()
+						{
+							return SpriteCache.getImage(path);
+						}
+					});
+			image = images.putIfAbsent(path, task);
+			if (image == null)
+			{
+				executor.execute(task);
+				image = task;
+			}
+		}
+		return image;
+	}
+
+	/**
+	 * Gets an image, waiting for it if it is still being loaded
+	 * @param path the path of the image file
+	 * @return the image
+	 */
+	public Image getImage(String path)
+	{
+		return get(preload(path));
+	}
+
+	/**
+	 * Runs any other loading work in the background
+	 * @param task the work
+	 * @return the pending result
+	 */
+	public <T> Future<T> submit(Callable<T> task)
+	{
+		return executor.submit(task);
+	}
+
+	/**
+	 * Waits for a result of background work
+	 * @param result the pending result
+	 * @return the result, or null if the work failed
+	 */
+	public <T> T get(Future<T> result)
+	{
+		try
+		{
+			return result.get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		catch (ExecutionException e)
+		{
+			e.getCause().printStackTrace();
+		}
+		return null;
+	}
+
+	/**
+	 * Remembers that a phase of starting up has been reached
+	 * @param phase the name of the phase
+	 */
+	public synchronized void mark(String phase)
+	{
+		phases.add(phase);
+		phaseTimes.add(System.nanoTime() - start);
+	}
+
+	/**
+	 * Gets the time every startup phase took to reach
+	 * @return the report
+	 */
+	public synchronized String report()
+	{
+		StringBuilder report = new StringBuilder("Startup:");
+		for (int phase = 0; phase < phases.size(); phase++)
+			report.append(String.format("%n  %-25s %7.1f ms", phases
+					.get(phase), phaseTimes.get(phase) / 1000000.0));
+		return report.toString();
+	}
+}
@@ -0,0 +1,357 @@
+/**
+ * Plays the background music
+ * Music is read from disk a small chunk at a time on its own thread and
+ * written to the sound card, instead of loading a whole song into memory
+ * first, and switching songs fades one into the other
+ * The chunks are mixed into a small buffer of the output line, which the
+ * thread waits on, so the music starts within a few hundredths of a second
+ * Every method may be called from the event dispatch thread, as none of
+ * them wait for the disk or the sound card
+ * @author agent
+ * @version October 18, 2026
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+public class AudioEngine implements Runnable
+{
+	// Every song is turned into CD quality stereo before mixing
+	public static final AudioFormat FORMAT = new AudioFormat(44100, 16, 2,
+			true, false);
+	private static final int FRAME_BYTES = 4;
+	// Mixed at a time, about 12 ms
+	private static final int CHUNK_FRAMES = 512;
+	// Waiting to be played by the sound card, about 46 ms
+	private static final int LINE_FRAMES = 2048;
+	private static final int CROSSFADE_FRAMES = 44100 * 3 / 2;
+	// Fading in or out when starting or stopping the music
+	private static final int FADE_FRAMES = 44100 / 10;
+
+	// Set by any thread, read by the music thread
+	private File requestedSong;
+	private boolean requestedPlaying;
+	private Thread thread;
+	private boolean unavailable;
+
+	// Only used by the music thread
+	private Track current, fading;
+	private final byte[] chunk = new byte[CHUNK_FRAMES * FRAME_BYTES];
+	private final int[] mixed = new int[CHUNK_FRAMES * 2];
+
+	/**
+	 * Starts playing a song over and over, fading out the one playing before
+	 * The same song continues where it was stopped
+	 * @param song the sound file
+	 */
+	public synchronized void play(File song)
+	{
+		requestedSong = song;
+		requestedPlaying = true;
+		if (unavailable)
+			return;
+		if (thread == null)
+		{
+			thread = new Thread(this, "Music");
+			thread.setDaemon(true);
+			thread.start();
+		}
+		notifyAll();
+	}
+
+	/**
+	 * Fades out the music
+	 */
+	public synchronized void stop()
+	{
+		requestedPlaying = false;
+	}
+
+	public synchronized boolean isPlaying()
+	{
+		return requestedPlaying;
+	}
+
+	@Override
+	public void run()
+	{
+		SourceDataLine line;
+		try
+		{
+			line = AudioSystem.getSourceDataLine(FORMAT);
+			line.open(FORMAT, LINE_FRAMES * FRAME_BYTES);
+		}
+		catch (LineUnavailableException e)
+		{
+			noOutput();
+			return;
+		}
+		catch (IllegalArgumentException e)
+		{
+			noOutput();
+			return;
+		}
+
+		try
+		{
+			while (true)
+			{
+				// Sleep once the music has faded out
+				boolean silent;
+				synchronized (this)
+				{
+					silent = !requestedPlaying && isSilent();
+				}
+				if (silent)
+				{
+					line.drain();
+					line.stop();
+					synchronized (this)
+					{
+						while (!requestedPlaying)
+							wait();
+					}
+				}
+
+				File song;
+				boolean playing;
+				synchronized (this)
+				{
+					song = requestedSong;
+					playing = requestedPlaying;
+				}
+				update(song, playing);
+				int bytes = mix();
+				line.start();
+				// Waits while the line is full
+				line.write(chunk, 0, bytes);
+			}
+		}
+		catch (InterruptedException e)
+		{
+			line.close();
+		}
+	}
+
+	private synchronized void noOutput()
+	{
+		System.out.println("No sound output, the music is off.");
+		unavailable = true;
+		thread = null;
+	}
+
+	/**
+	 * Starts fading between songs when a different song was chosen, or in or
+	 * out when the music was started or stopped
+	 */
+	private void update(File song, boolean playing)
+	{
+		if (song != null && (current == null || !current.file.equals(song)))
+		{
+			Track next = new Track(song);
+			if (current != null && current.gain > 0)
+			{
+				// Only one song fades out at a time
+				if (fading != null)
+					fading.close();
+				fading = current;
+				fading.fadeTo(0, CROSSFADE_FRAMES);
+				next.fadeTo(1, CROSSFADE_FRAMES);
+			}
+			else
+			{
+				if (current != null)
+					current.close();
+				next.fadeTo(1, FADE_FRAMES);
+			}
+			current = next;
+		}
+		if (current == null)
+			return;
+
+		if (!playing && current.target != 0)
+			current.fadeTo(0, FADE_FRAMES);
+		else if (playing && current.target != 1)
+			current.fadeTo(1, FADE_FRAMES);
+	}
+
+	/**
+	 * Mixes the next chunk of every playing song
+	 * @return the number of bytes in the chunk
+	 */
+	private int mix()
+	{
+		Arrays.fill(mixed, 0);
+		if (current != null)
+			current.mixInto(mixed, chunk);
+		if (fading != null)
+		{
+			fading.mixInto(mixed, chunk);
+			if (fading.gain == 0)
+			{
+				fading.close();
+				fading = null;
+			}
+		}
+
+		for (int sample = 0; sample < mixed.length; sample++)
+		{
+			int value = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE,
+					mixed[sample]));
+			chunk[sample * 2] = (byte) value;
+			chunk[sample * 2 + 1] = (byte) (value >> 8);
+		}
+		return chunk.length;
+	}
+
+	/**
+	 * Checks whether every song has faded out
+	 */
+	private boolean isSilent()
+	{
+		return (current == null || current.gain == 0 && current.target == 0)
+				&& fading == null;
+	}
+
+	/**
+	 * A song being read from its file, starting again at the end
+	 */
+	private static class Track
+	{
+		private final File file;
+		private AudioInputStream stream;
+		private boolean broken;
+
+		// Volume from 0 to 1, changing by step every frame until it reaches
+		// the target
+		private float gain, target, step;
+
+		private Track(File file)
+		{
+			this.file = file;
+		}
+
+		private void fadeTo(float target, int frames)
+		{
+			this.target = target;
+			step = (target - gain) / frames;
+		}
+
+		/**
+		 * Adds the next chunk of the song to the mix
+		 * @param mixed the samples mixed so far
+		 * @param buffer space to read the song into
+		 */
+		private void mixInto(int[] mixed, byte[] buffer)
+		{
+			int bytes = read(buffer);
+			for (int sample = 0; sample < bytes / 2; sample++)
+			{
+				// Both channels of a frame get the same volume
+				if (sample % 2 == 0 && gain != target)
+				{
+					gain += step;
+					if (step > 0 ? gain >= target : gain <= target)
+						gain = target;
+				}
+				int value = (buffer[sample * 2] & 0xff)
+						| buffer[sample * 2 + 1] << 8;
+				mixed[sample] += (int) (value * gain);
+			}
+			// Keep fading even while the song can not be read
+			if (bytes < buffer.length && gain != target)
+			{
+				gain += step * (buffer.length - bytes) / FRAME_BYTES;
+				if (step > 0 ? gain >= target : gain <= target)
+					gain = target;
+			}
+		}
+
+		/**
+		 * Reads a chunk of the song, opening it again at its end
+		 * @return the number of bytes read, only fewer than the buffer if
+		 *         the song can not be read
+		 */
+		private int read(byte[] buffer)
+		{
+			int filled = 0;
+			boolean restarted = false;
+			while (filled < buffer.length && !broken)
+			{
+				try
+				{
+					if (stream == null)
+						stream = open(file);
+					int read = stream.read(buffer, filled, buffer.length
+							- filled);
+					if (read > 0)
+						filled += read;
+					else if (read < 0)
+					{
+						// An empty song would start again forever
+						if (restarted && filled == 0)
+							broken = true;
+						restarted = true;
+						close();
+					}
+				}
+				catch (IOException e)
+				{
+					System.out.println("Could not play " + file);
+					broken = true;
+				}
+				catch (UnsupportedAudioFileException e)
+				{
+					System.out.println("Could not play " + file);
+					broken = true;
+				}
+				catch (IllegalArgumentException e)
+				{
+					// No conversion into the mixing format
+					System.out.println("Could not play " + file);
+					broken = true;
+				}
+			}
+			return filled - filled % FRAME_BYTES;
+		}
+
+		private static AudioInputStream open(File file) throws IOException,
+				UnsupportedAudioFileException
+		{
+			AudioInputStream in = AudioSystem.getAudioInputStream(file);
+			if (in.getFormat().matches(FORMAT))
+				return in;
+			// Other sample sizes, rates and channel counts are converted
+			AudioFormat format = in.getFormat();
+			if (format.getEncoding() != AudioFormat.Encoding.PCM_SIGNED)
+			{
+				format = new AudioFormat(format.getSampleRate(), 16, format
+						.getChannels(), true, false);
+				in = AudioSystem.getAudioInputStream(format, in);
+			}
+			return AudioSystem.getAudioInputStream(FORMAT, in);
+		}
+
+		private void close()
+		{
+			if (stream == null)
+				return;
+			try
+			{
+				stream.close();
+			}
+			catch (IOException e)
+			{
+				// Nothing left to read anyway
+			}
+			stream = null;
+		}
+	}
+}
@@ -0,0 +1,153 @@
+/**
+ * Uniform grid over the play area that remembers which blocking objects
+ * overlap each cell so that collision checks only look at nearby objects
+ * Objects are added and removed as their visibility changes
+ * @author agent
+ * @version October 18, 2026
+ */
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+public class CollisionGrid implements EObject.VisibilityListener
+{
+	// Size of the play area and of each cell in pixels
+	public static final int WIDTH = 1000;
+	public static final int HEIGHT = 500;
+	public static final int CELL_SIZE = 50;
+
+	private final int columns, rows;
+	private final ArrayList<ArrayList<EObject>> cells;
+
+	// The area each object was added with, needed to remove it again
+	private final IdentityHashMap<EObject, Rectangle> placed =
+			new IdentityHashMap<EObject, Rectangle>();
+
+	/**
+	 * Builds the grid for a level
+	 * @param levelObjects the array of all usable objects in the level
+	 * @param backObjects the array of all background objects in the level
+	 */
+	public CollisionGrid(EObject[] levelObjects, EObject[] backObjects)
+	{
+		this(WIDTH, HEIGHT);
+		for (int object = 0; object < backObjects.length; object++)
+			track(backObjects[object]);
+		for (int object = 0; object < levelObjects.length; object++)
+			track(levelObjects[object]);
+	}
+
+	/**
+	 * Creates an empty grid covering the given area
+	 * @param width the width of the area
+	 * @param height the height of the area
+	 */
+	public CollisionGrid(int width, int height)
+	{
+		columns = (width + CELL_SIZE - 1) / CELL_SIZE;
+		rows = (height + CELL_SIZE - 1) / CELL_SIZE;
+		cells = new ArrayList<ArrayList<EObject>>(columns * rows);
+		for (int cell = 0; cell < columns * rows; cell++)
+			cells.add(new ArrayList<EObject>(4));
+	}
+
+	/**
+	 * Starts keeping track of an object, adding it now if it blocks movement
+	 * @param object the object
+	 */
+	public void track(EObject object)
+	{
+		object.addVisibilityListener(this);
+		if (object.isBlocking())
+			add(object);
+	}
+
+	/**
+	 * Checks whether the given area overlaps any blocking object
+	 * @param area the area to check (usually the character)
+	 * @return whether something is in the way
+	 */
+	public boolean isBlocked(Rectangle area)
+	{
+		int firstColumn = column(area.x);
+		int lastColumn = column(area.x + area.width - 1);
+		int firstRow = row(area.y);
+		int lastRow = row(area.y + area.height - 1);
+		for (int row = firstRow; row <= lastRow; row++)
+		{
+			for (int column = firstColumn; column <= lastColumn; column++)
+			{
+				ArrayList<EObject> cell = cells.get(row * columns + column);
+				for (int object = 0; object < cell.size(); object++)
+				{
+					if (cell.get(object).intersects(area))
+						return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public void visibilityChanged(EObject object)
+	{
+		if (object.isBlocking())
+			add(object);
+		else
+			remove(object);
+	}
+
+	/**
+	 * Adds an object to every cell it overlaps
+	 * @param object the object
+	 */
+	private void add(EObject object)
+	{
+		if (placed.containsKey(object))
+			return;
+		Rectangle area = object.getBounds();
+		placed.put(object, area);
+		for (int row = row(area.y); row <= row(area.y + area.height - 1); row++)
+			for (int column = column(area.x); column <= column(area.x
+					+ area.width - 1); column++)
+				cells.get(row * columns + column).add(object);
+	}
+
+	/**
+	 * Removes an object from every cell it was added to
+	 * @param object the object
+	 */
+	private void remove(EObject object)
+	{
+		Rectangle area = placed.remove(object);
+		if (area == null)
+			return;
+		for (int row = row(area.y); row <= row(area.y + area.height - 1); row++)
+			for (int column = column(area.x); column <= column(area.x
+					+ area.width - 1); column++)
+				cells.get(row * columns + column).remove(object);
+	}
+
+	/**
+	 * Finds the column of an x position, anything outside the grid belongs to
+	 * the nearest edge column
+	 * @param x the x position
+	 * @return the column
+	 */
+	private int column(int x)
+	{
+		return Math.max(0, Math.min(columns - 1, Math.floorDiv(x, CELL_SIZE)));
+	}
+
+	/**
+	 * Finds the row of a y position, anything outside the grid belongs to the
+	 * nearest edge row
+	 * @param y the y position
+	 * @return the row
+	 */
+	private int row(int y)
+	{
+		return Math.max(0, Math.min(rows - 1, Math.floorDiv(y, CELL_SIZE)));
+	}
+}
@@ -8,22 +8,29 @@
 import java.awt.Container;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
 import java.awt.Image;
 import java.awt.Point;
 import java.awt.Rectangle;
-import javax.swing.ImageIcon;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
 
 public class ECharacter extends Rectangle
 {
 	// constant number of pixels the character moves
 	private final int MOVE_PIXELS = 10;
 
-	private Image image =
-			new ImageIcon("Character.png").getImage();
 	private int angle = 0; // Affects the rotation of the image
+	// Where the character was before the last game loop step
+	private int previousX, previousY;
+	// The image turned to each of the four angles, created on first use
+	private Image[] orientations;
 	private Container container; // Necessary for rotation
 	// Enables us to keep track of whether objects are in the specified range
 	private Rectangle range;
+	// Speeds up collision checks if set
+	private CollisionGrid collisionGrid;
+	private ReachabilityMap reachabilityMap;
 
 	/**
 	 * Constructor for the character
@@ -37,6 +44,8 @@ public class ECharacter extends Rectangle
 		super(x, y, 90, 90);
 		angle = 0;
 		this.container = container;
+		previousX = x;
+		previousY = y;
 
 		// Create the range rectangle
 		range = new Rectangle(this.x - 120, this.y - 120, 300, 300);
@@ -48,19 +57,80 @@ public class ECharacter extends Rectangle
 	 */
 	public void draw(Graphics g)
 	{
-		// We need a Graphics2D object for rotate
-		Graphics2D g2D = (Graphics2D) g;
+		draw(g, 1);
+	}
+
+	/**
+	 * Draws this image part of the way between where it was before the last
+	 * step and where it is now
+	 * @param g the graphics object to draw this image in
+	 * @param alpha how far along the way the character is (0 to 1)
+	 */
+	public void draw(Graphics g, double alpha)
+	{
+		if (orientations == null)
+			orientations = createOrientations(SpriteCache
+					.getImage("Character.png"));
+		Rectangle drawn = getDrawnBounds(alpha);
+		g.drawImage(orientations[angle / 90], drawn.x, drawn.y, container);
+	}
 
-		// Find the angle in radians and the x and y position of the centre of
-		// the object
-		double angleInRadians = Math.toRadians(angle);
-		int centreX = x + image.getWidth(container) / 2;
-		int centreY = y + image.getHeight(container) / 2;
+	/**
+	 * Remembers the current position as the start of the next step, so that
+	 * the step can be drawn gradually
+	 */
+	public void rememberPosition()
+	{
+		previousX = x;
+		previousY = y;
+	}
 
-		// Rotate the graphic context, draw the image and then rotate back
-		g2D.rotate(angleInRadians, centreX, centreY);
-		g.drawImage(image, x, y, container);
-		g2D.rotate(-angleInRadians, centreX, centreY);
+	/**
+	 * Gets the area the character is drawn in part of the way through a step
+	 * @param alpha how far along the way the character is (0 to 1)
+	 * @return the area
+	 */
+	public Rectangle getDrawnBounds(double alpha)
+	{
+		return new Rectangle((int) Math.round(previousX + (x - previousX)
+				* alpha), (int) Math.round(previousY + (y - previousY)
+				* alpha), width, height);
+	}
+
+	/**
+	 * Turns an image to 0, 90, 180 and 270 degrees once so that drawing does
+	 * not need to rotate the graphics context every time
+	 * @param image the image facing up
+	 * @return the four turned images in order of their angle
+	 */
+	public static Image[] createOrientations(Image image)
+	{
+		int width = Math.max(1, image.getWidth(null));
+		int height = Math.max(1, image.getHeight(null));
+		Image[] orientations = new Image[4];
+		for (int orientation = 0; orientation < orientations.length; orientation++)
+		{
+			// Use an image in the screen's format if there is a screen
+			BufferedImage turned;
+			if (GraphicsEnvironment.isHeadless())
+				turned = new BufferedImage(width, height,
+						BufferedImage.TYPE_INT_ARGB);
+			else
+				turned = GraphicsEnvironment.getLocalGraphicsEnvironment()
+						.getDefaultScreenDevice().getDefaultConfiguration()
+						.createCompatibleImage(width, height,
+								Transparency.TRANSLUCENT);
+
+			// Rotate around the centre of the image, as the character is
+			// always drawn
+			Graphics2D g2D = turned.createGraphics();
+			g2D.rotate(Math.toRadians(orientation * 90), width / 2,
+					height / 2);
+			g2D.drawImage(image, 0, 0, null);
+			g2D.dispose();
+			orientations[orientation] = turned;
+		}
+		return orientations;
 	}
 
 	/**
@@ -76,6 +146,15 @@ public class ECharacter extends Rectangle
 			return false;
 	}
 
+	/**
+	 * Gets the area around the character in which objects can be used
+	 * @return a copy of the range rectangle
+	 */
+	public Rectangle getRange()
+	{
+		return new Rectangle(range);
+	}
+
 	/**
 	 * Adds the character into a level at the given coordinates
 	 * @param x the given x position
@@ -85,11 +164,31 @@ public class ECharacter extends Rectangle
 	{
 		this.x = x;
 		this.y = y;
+		previousX = x;
+		previousY = y;
 		// Adjusted to match the range specifications
 		range.x = x - 120;
 		range.y = y - 120;
 	}
 
+	/**
+	 * Sets the collision grid of the current level
+	 * @param collisionGrid the grid, or null to check every object
+	 */
+	public void setCollisionGrid(CollisionGrid collisionGrid)
+	{
+		this.collisionGrid = collisionGrid;
+	}
+
+	/**
+	 * Sets the map of where the character can stand in the current level
+	 * @param reachabilityMap the map, or null to check objects instead
+	 */
+	public void setReachabilityMap(ReachabilityMap reachabilityMap)
+	{
+		this.reachabilityMap = reachabilityMap;
+	}
+
 	/**
 	 * Checks whether the character is able to move
 	 * @param levelObjects the array of all usable objects in the level
@@ -98,6 +197,14 @@ public class ECharacter extends Rectangle
 	 */
 	public boolean canMove(EObject[] levelObjects, EObject[] backObjects)
 	{
+		// Positions on the map are looked up directly
+		if (reachabilityMap != null && reachabilityMap.covers(this))
+			return reachabilityMap.isFree(this);
+
+		// Only nearby objects need to be checked if the level has a grid
+		if (collisionGrid != null)
+			return !collisionGrid.isBlocked(this);
+
 		// Checks for any intersections with visible objects
 		for (int object = 0; object < levelObjects.length; object++)
 		{
@@ -6,7 +6,7 @@
  */
 import java.awt.*;
 import java.awt.image.ImageObserver;
-import javax.swing.ImageIcon;
+import java.util.ArrayList;
 
 public class EObject extends Rectangle implements ImageObserver
 {
@@ -20,6 +20,9 @@ public class EObject extends Rectangle implements ImageObserver
 	private int drawingState;
 	private int descriptionState;//
 
+	// Everything that needs to know when this object appears or disappears
+	private ArrayList<VisibilityListener> visibilityListeners;
+
 	/**
 	 * Constructor for background objects
 	 */
@@ -33,7 +36,7 @@ public class EObject extends Rectangle implements ImageObserver
 		this.hoverDescription = description;
 		clickDescription = description;
 		useDescription = description;
-		this.image1 = new ImageIcon("Objects//" + image1).getImage();
+		this.image1 = SpriteCache.getImage("Objects//" + image1);
 		hostItemNo = -1;
 		hiddenItemNo = -1;
 		toUseItemNo = -1;
@@ -65,9 +68,10 @@ public class EObject extends Rectangle implements ImageObserver
 		this.hoverDescription = description;
 		this.clickDescription = description2;
 		this.useDescription = description3;
-		this.image1 = new ImageIcon("Objects//" + image1).getImage();
-		this.image2 = new ImageIcon("Objects//" + image2).getImage();
-		this.image3 = new ImageIcon("Objects//" + image3).getImage();
+		// Images are shared with every other object using the same file
+		this.image1 = SpriteCache.getImage("Objects//" + image1);
+		this.image2 = SpriteCache.getImage("Objects//" + image2);
+		this.image3 = SpriteCache.getImage("Objects//" + image3);
 		hostItemNo = hostItemNumber;
 		hiddenItemNo = hiddenItemNumber;
 		toUseItemNo = useInventory;
@@ -173,8 +177,9 @@ public class EObject extends Rectangle implements ImageObserver
 	 * Check whether any items are to be revealed upon the click and if so,
 	 * reveal them
 	 * @param levelObjects the array of interactive objects in the level
+	 * @return whether a hidden item was revealed
 	 */
-	public void revealSecrets(EObject[] levelObjects)
+	public boolean revealSecrets(EObject[] levelObjects)
 	{
 		// Any hidden item will be released unless it is non-existent
 		// or has already been released (indicated by drawing state)
@@ -182,12 +187,19 @@ public class EObject extends Rectangle implements ImageObserver
 		{
 			changeImage(3);
 			levelObjects[hiddenItemNo].changeVisibility();
+			return true;
 		}
 		// If the image can be changed with a mere click, it will be
 		else if (isClickableToChangeImage)
 		{
 			changeImage();
 		}
+		return false;
+	}
+
+	public String getName()
+	{
+		return name;
 	}
 
 	/**
@@ -214,6 +226,22 @@ public class EObject extends Rectangle implements ImageObserver
 	public void changeVisibility()
 	{
 		this.isVisible = !isVisible;
+		if (visibilityListeners != null)
+		{
+			for (int listener = 0; listener < visibilityListeners.size(); listener++)
+				visibilityListeners.get(listener).visibilityChanged(this);
+		}
+	}
+
+	/**
+	 * Adds a listener that is told whenever this object's visibility changes
+	 * @param listener the listener
+	 */
+	public void addVisibilityListener(VisibilityListener listener)
+	{
+		if (visibilityListeners == null)
+			visibilityListeners = new ArrayList<VisibilityListener>(2);
+		visibilityListeners.add(listener);
 	}
 
 	/**
@@ -225,6 +253,16 @@ public class EObject extends Rectangle implements ImageObserver
 		return isVisible;
 	}
 
+	/**
+	 * Checks whether the character is unable to walk through this object
+	 * @return whether this object currently blocks movement
+	 */
+	public boolean isBlocking()
+	{
+		// Items can be picked up and therefore walked over
+		return isVisible && !isUsableItem;
+	}
+
 	@Override
 	public boolean imageUpdate(Image arg0, int arg1, int arg2, int arg3,
 			int arg4, int arg5)
@@ -232,4 +270,15 @@ public class EObject extends Rectangle implements ImageObserver
 		return false;
 	}
 
+	/**
+	 * Listens for objects appearing or disappearing
+	 */
+	public interface VisibilityListener
+	{
+		/**
+		 * Called after an object's visibility has changed
+		 * @param object the object that changed
+		 */
+		void visibilityChanged(EObject object);
+	}
 }
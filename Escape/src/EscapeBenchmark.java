@@ -0,0 +1,145 @@
+/**
+ * Measures the speed of performance sensitive parts of the game outside of
+ * the game itself: java EscapeBenchmark
+ * @author agent
+ * @version October 18, 2026
+ */
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+public class EscapeBenchmark
+{
+	private static final int[] OBJECT_COUNTS = { 10, 100, 1000, 10000 };
+	private static final int CHECKS = 200000;
+	private static final int DRAWS = 20000;
+
+	public static void main(String[] args)
+	{
+		collisionBenchmark();
+		characterBenchmark();
+	}
+
+	/**
+	 * Compares checking every object against using the collision grid for
+	 * rooms with more and more objects
+	 */
+	private static void collisionBenchmark()
+	{
+		System.out.println("Collision checks (" + CHECKS + " per room)");
+		System.out.printf("%8s %14s %14s %8s%n", "Objects", "Linear ns/op",
+				"Grid ns/op", "Speedup");
+		for (int count : OBJECT_COUNTS)
+		{
+			Random random = new Random(count);
+			EObject[] backObjects = new EObject[count / 4];
+			EObject[] levelObjects = new EObject[count - backObjects.length];
+			for (int object = 0; object < backObjects.length; object++)
+			{
+				backObjects[object] = new EObject("Wall", "A wall.",
+						"Wall-V.png", new Point(0, 0));
+				backObjects[object].setBounds(random.nextInt(1000),
+						random.nextInt(500), 10 + random.nextInt(20),
+						10 + random.nextInt(20));
+			}
+			for (int object = 0; object < levelObjects.length; object++)
+			{
+				levelObjects[object] = new EObject("Box", "A box.", "A box.",
+						"A box.", "Key.png", "Key.png", "Key.png", new Point(
+								0, 0), -1, -1, -1, random.nextInt(4) == 0,
+						false);
+				levelObjects[object].setBounds(random.nextInt(1000),
+						random.nextInt(500), 10 + random.nextInt(20),
+						10 + random.nextInt(20));
+			}
+
+			ECharacter character = new ECharacter(0, 0, null);
+			CollisionGrid grid = new CollisionGrid(levelObjects, backObjects);
+			int[] positions = new int[CHECKS * 2];
+			for (int index = 0; index < positions.length; index += 2)
+			{
+				positions[index] = random.nextInt(910);
+				positions[index + 1] = random.nextInt(410);
+			}
+
+			// Warm up both versions before timing them
+			long[] linear = new long[2];
+			long[] indexed = new long[2];
+			for (int round = 0; round < 3; round++)
+			{
+				character.setCollisionGrid(null);
+				linear = time(character, positions, levelObjects, backObjects);
+				character.setCollisionGrid(grid);
+				indexed = time(character, positions, levelObjects, backObjects);
+			}
+			if (linear[1] != indexed[1])
+				System.out.println("Results differ for " + count + " objects!");
+
+			System.out.printf("%8d %14.1f %14.1f %7.1fx%n", count,
+					linear[0] / (double) CHECKS, indexed[0] / (double) CHECKS,
+					linear[0] / (double) indexed[0]);
+		}
+	}
+
+	/**
+	 * Times collision checks for the given character positions
+	 * @return the time taken in nanoseconds and the number of blocked
+	 *         positions
+	 */
+	private static long[] time(ECharacter character, int[] positions,
+			EObject[] levelObjects, EObject[] backObjects)
+	{
+		long blocked = 0;
+		long start = System.nanoTime();
+		for (int index = 0; index < positions.length; index += 2)
+		{
+			character.addToStart(positions[index], positions[index + 1]);
+			if (!character.canMove(levelObjects, backObjects))
+				blocked++;
+		}
+		return new long[] { System.nanoTime() - start, blocked };
+	}
+
+	/**
+	 * Compares rotating the graphics context for every character drawing
+	 * (as the game used to) against drawing the pre-turned images
+	 */
+	private static void characterBenchmark()
+	{
+		BufferedImage screen = new BufferedImage(1000, 700,
+				BufferedImage.TYPE_INT_RGB);
+		Graphics2D g2D = screen.createGraphics();
+		Image image = SpriteCache.getImage("Character.png");
+		Image[] orientations = ECharacter.createOrientations(image);
+
+		long rotated = 0, cached = 0;
+		for (int round = 0; round < 3; round++)
+		{
+			long start = System.nanoTime();
+			for (int draw = 0; draw < DRAWS; draw++)
+			{
+				double angleInRadians = Math.toRadians(draw % 4 * 90);
+				g2D.rotate(angleInRadians, 495, 245);
+				g2D.drawImage(image, 450, 200, null);
+				g2D.rotate(-angleInRadians, 495, 245);
+			}
+			rotated = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			for (int draw = 0; draw < DRAWS; draw++)
+				g2D.drawImage(orientations[draw % 4], 450, 200, null);
+			cached = System.nanoTime() - start;
+		}
+		g2D.dispose();
+
+		System.out.println();
+		System.out.println("Character drawing (" + DRAWS + " draws)");
+		System.out.printf("Rotated graphics: %8.2f us/draw%n", rotated
+				/ 1000.0 / DRAWS);
+		System.out.printf("Turned images:    %8.2f us/draw (%.1fx)%n",
+				cached / 1000.0 / DRAWS, rotated / (double) cached);
+	}
+}
@@ -5,15 +5,14 @@
  * @version January 21, 2015
  */
 
-import java.applet.Applet;
-import java.applet.AudioClip;
 import java.awt.*;
 import java.awt.event.*;
 import java.io.*;
-import java.net.MalformedURLException;
-import java.net.URL;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Scanner;
+import java.util.Date;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 import javax.swing.*;
 
 public class EscapeGrid extends JPanel implements MouseListener, KeyListener,
@@ -46,48 +45,98 @@ public class EscapeGrid extends JPanel implements MouseListener, KeyListener,
 	private final Point DISPLAY_NAME = new Point(565, 570);
 	private final Point DISPLAY_DESCRIPTION = new Point(565, 600);
 
+	// Areas of the game screen that are repainted on their own
+	private final Rectangle INVENTORY_AREA = new Rectangle(0, 500, 500, 200);
+	private final Rectangle DESCRIPTION_AREA = new Rectangle(500, 500, 500,
+			200);
+	private final Rectangle TIME_AREA = new Rectangle(575, 0, 220, 45);
+
 	private final int NO_OF_LEVELS = 10;
 	private final int NO_OF_INSTRUCTIONS = 6;
 
 	// Game screen images
-	private Image inventoryScreen, descriptionScreen, background,
-			highlightImage, mainMenu, finalScreen,
+	private Image inventoryScreen, descriptionScreen, highlightImage, mainMenu, finalScreen,
 			instructionScreen, recordsScreen, settingsScreen, creditsScreen,
 			gameOverScreen, til, wil;
 
+	// Everything on the game screen that stays the same during a level
+	private Image staticLayer;
+
 	// Game fonts
 	private Font font;
 
-	// Initialize all object oriented variables
-	private ArrayList<EObject> inventoryObjects = new ArrayList<EObject>(0);
-	private EObject[] backObjects, levelObjects;
-	private EObject clickedObject;
-	private EObject currentObject;
+	// Everything shown on each page of the instruction screen
+	private InstructionPage[] instructionPages;
+
+	// Loads images, sounds and the font in the background
+	private AssetLoader assets = new AssetLoader();
+	private Future<InstructionPage[]> pendingInstructionPages;
+	private Future<SoundMixer> pendingSounds;
+	private Future<Leaderboard> pendingLeaderboard;
 
-	// Initialize booleans that will be essential to the paint component
-	private boolean highlight, showDescription, charDescription,
-			outOfRange, somethingInteresting;
+	// Prepares levels before they are started
+	private LevelPrefetcher prefetcher = new LevelPrefetcher();
+	private boolean assetsLoaded, firstFrameShown, startupReported;
 
-	private String levelDescription, playerName;
+	// The level currently being played, which applies all game rules
+	private GameSession session;
+
+	private String playerName;
 	private int currentLevel;
 
-	// Initialize arrays that keep track of the record times and holders
-	double[] timeRecords = new double[NO_OF_LEVELS + 1];
-	String[] recordHolders = new String[NO_OF_LEVELS + 1];
+	// Keeps track of the record times and holders
+	private RecordStore records;
+	// Keeps every finished run
+	private Leaderboard leaderboard;
+	// The level whose best runs are shown on the records screen, 0 for all
+	private int recordsLevel;
+	private double lastTime;
+	// Whether the run just finished was verified and added to the leaderboard
+	private boolean lastCounted;
+	private final SimpleDateFormat dateFormat = new SimpleDateFormat(
+			"yyyy-MM-dd");
 	boolean[] unlockedLevels = new boolean[NO_OF_LEVELS + 1];
 
-	ECharacter character;
-
 	// All audio related stuff
 	private boolean musicPlaying;
-	private AudioClip backgroundSound, backgroundSound2, currentSound;
+	private AudioEngine audio = new AudioEngine();
+	private final File queenSong = new File("Sounds//Song.wav");
+	private final File elvisSong = new File("Sounds//Song2.wav");
+	// Plays the sounds of the game, such as picking up items
+	private SoundMixer sounds;
 	private Icon musicIcon1, musicIcon2, musicIcon3, musicOffIcon1,
 			musicOffIcon2, musicOffIcon3, buttonIcon, buttonIcon2, buttonIcon3,
 			helpIcon1, helpIcon2, helpIcon3, homeIcon1, homeIcon2, homeIcon3;
 
-	// Allows this class to access the timer and current time
+	// Allows this class to access the timer, which steps the level
 	private Timer timer;
-	private int time;
+	// The time on the screen, which is only redrawn when it changes
+	private int shownTenths;
+
+	// Keys held down, looked at once per step
+	private InputState input = new InputState();
+
+	// Replaces the timer with -Descape.gameLoop=true, drawing the character
+	// smoothly between steps
+	private GameLoop gameLoop;
+	private double interpolation = 1;
+	private Rectangle lastDrawn;
+
+	// Records everything done in the current level, the level's clock runs
+	// on its time
+	private InputJournal journal;
+	// Plays a journal again instead of the player with
+	// -Descape.replay=<journal file> at -Descape.replaySpeed times the speed
+	private InputJournal replay;
+	private Timer replayTimer;
+	private long replayStart;
+	private double replaySpeed;
+	private KeyListener[] liveKeyListeners;
+	private MouseListener[] liveMouseListeners;
+	private MouseMotionListener[] liveMotionListeners;
+
+	// Measures how much is painted
+	private RenderStats renderStats = new RenderStats();
 
 	// All JButtons are initialized here
 	private JButton[] levelButtons = new JButton[NO_OF_LEVELS + 1];
@@ -97,6 +146,7 @@ public class EscapeGrid extends JPanel implements MouseListener, KeyListener,
 			creditsButton, unlockLevelsButton;
 	private JRadioButton queen, elvis;
 	private ButtonGroup songs;
+	private JCheckBox clickToWalkBox;
 
 	/**
 	 * Initializes needed variables, creates and adds buttons, sets up the main
@@ -110,14 +160,9 @@ public class EscapeGrid extends JPanel implements MouseListener, KeyListener,
 
 		// Initial variables
 		currentLevel = 1;
-		clickedObject = null;
-		currentObject = null;
-		somethingInteresting = true;
 		musicPlaying = true;
 
 		initializeMechanisms();
-		// Start the sound
-		currentSound.loop();
 
 		// Add the JButtons to the JPanel
 		add(startButton);
@@ -154,6 +199,7 @@ public class EscapeGrid extends JPanel implements MouseListener, KeyListener,
 		// Add mouse listeners and Key Listeners to the game board
 		addMouseListener(this);
 		setFocusable(true);
+		// First, so that keys are recorded before KeyHandler handles them
 		addKeyListener(this);
 		this.addKeyListener(new KeyHandler());
 		this.addMouseListener(new MouseHandler());
@@ -174,92 +220,129 @@ public class EscapeGrid extends JPanel implements MouseListener, KeyListener,
 	 */
 	private void initializeMechanisms()
 	{
-		// Initialize the main character
-		character = new ECharacter(500, 500, this);
-
-		// Sets game screen images
-		inventoryScreen = new ImageIcon("GameScreens//Inventory.png")
-				.getImage();
-		descriptionScreen = new ImageIcon("GameScreens//Display.png")
-				.getImage();
-		finalScreen = new ImageIcon("GameScreens//BetweenLevels.png")
-				.getImage();
-		mainMenu = new ImageIcon("GameScreens//Main-Menu.png").getImage();
-		instructionScreen = new ImageIcon("GameScreens//Instructions.png")
-				.getImage();
-		recordsScreen = new ImageIcon("GameScreens//Records.png").getImage();
-		settingsScreen = new ImageIcon("GameScreens//Settings.png").getImage();
-		creditsScreen = new ImageIcon("GameScreens//Credits.png").getImage();
-		gameOverScreen = new ImageIcon("GameScreens//EndScreen.png")
-				.getImage();
-		til = new ImageIcon("til1.png").getImage();
-		wil = new ImageIcon("wil1.png").getImage();
-
-		highlightImage = new ImageIcon("Highlight.png").getImage();
-
-		// Sets font
-		try
+		// Start loading all files at once, the ones needed for the main menu
+		// first
+		assets.mark("Loading started");
+		assets.preload("GameScreens//Main-Menu.png");
+		for (String button : new String[] { "Button", "Sound", "SoundOff",
+				"Question", "Home" })
+			for (int state = 1; state <= 3; state++)
+				assets.preload("Buttons//" + button + state + ".png");
+		Future<Font> pendingFont = assets.submit(new Callable<Font>()
 		{
-			font = Font.createFont(Font.TRUETYPE_FONT,
-					new FileInputStream(new File("Fonts//Gunplay Rg.ttf")))
-					.deriveFont(Font.PLAIN, 24);
-		}
-		catch (FontFormatException | IOException e)
+			public Font call() throws Exception
+			{
+				return Font.createFont(Font.TRUETYPE_FONT,
+						new FileInputStream(new File("Fonts//Gunplay Rg.ttf")))
+						.deriveFont(Font.PLAIN, 24);
+			}
+		});
+
+		// Everything else is only needed once the player leaves the menu
+		final String[] laterImages = { "GameScreens//Inventory.png",
+				"GameScreens//Display.png", "GameScreens//BetweenLevels.png",
+				"GameScreens//Instructions.png", "GameScreens//Records.png",
+				"GameScreens//Settings.png", "GameScreens//Credits.png",
+				"GameScreens//EndScreen.png", "til1.png", "wil1.png",
+				"Highlight.png", "Character.png" };
+		for (String image : laterImages)
+			assets.preload(image);
+		pendingInstructionPages = assets
+				.submit(new Callable<InstructionPage[]>()
+				{
+					public InstructionPage[] call()
+					{
+						return createInstructionPages();
+					}
+				});
+		// Songs are read while they play, only sound effects are loaded
+		pendingSounds = assets.submit(new Callable<SoundMixer>()
 		{
-			e.printStackTrace();
-			System.out.println("Invalid font");
-		}
+			public SoundMixer call()
+			{
+				return new SoundMixer(new File("Sounds"));
+			}
+		});
 
-		// Keeps track of record times in a text file
-		Scanner recordFile;
-		try
+		// Once everything else has been loaded it is handed over to the
+		// event thread. This is queued last, so waiting here does not keep
+		// anything else from loading
+		assets.submit(new Callable<Void>()
 		{
-			recordFile = new Scanner(new File("records.txt"));
-			for (int level = 1; level <= NO_OF_LEVELS; level++)
+			public Void call()
 			{
-				timeRecords[level] = recordFile.nextDouble();
-				recordHolders[level] = recordFile.nextLine().trim();
+				// Work that failed has been reported and is left out
+				for (String image : laterImages)
+					assets.get(assets.preload(image));
+				assets.get(pendingInstructionPages);
+				assets.get(pendingSounds);
+				SwingUtilities.invokeLater(new Runnable()
+				{
+					public void run()
+					{
+						finishLoading();
+					}
+				});
+				return null;
 			}
-			recordFile.close();
-		}
-		catch (FileNotFoundException e)
+		});
+
+		// Sets the main menu image and font
+		mainMenu = assets.getImage("GameScreens//Main-Menu.png");
+		font = assets.get(pendingFont);
+		if (font == null)
+			System.out.println("Invalid font");
+
+		// Keeps track of record times in records.txt and records.log
+		records = new RecordStore(new File("."), NO_OF_LEVELS);
+		pendingLeaderboard = assets.submit(new Callable<Leaderboard>()
 		{
-			e.printStackTrace();
-			System.out.println("The record file has been corrupted.");
-		}
+			public Leaderboard call()
+			{
+				Leaderboard runs = new Leaderboard(new File("."),
+						NO_OF_LEVELS);
+				// Start with the records from before there was a leaderboard
+				for (int level = 1; level <= NO_OF_LEVELS; level++)
+					if (runs.getRunCount(level) == 0
+							&& records.getTime(level) < RecordStore.NO_TIME)
+						runs.add(level, records.getTime(level),
+								records.getHolder(level), 0);
+				return runs;
+			}
+		});
 
 		// Initialize Buttons and Icons
-		musicIcon1 = new ImageIcon("Buttons//Sound1.png");
-		musicIcon2 = new ImageIcon("Buttons//Sound2.png");
-		musicIcon3 = new ImageIcon("Buttons//Sound3.png");
-		musicOffIcon1 = new ImageIcon("Buttons//SoundOff1.png");
-		musicOffIcon2 = new ImageIcon("Buttons//SoundOff2.png");
-		musicOffIcon3 = new ImageIcon("Buttons//SoundOff3.png");
+		musicIcon1 = icon("Buttons//Sound1.png");
+		musicIcon2 = icon("Buttons//Sound2.png");
+		musicIcon3 = icon("Buttons//Sound3.png");
+		musicOffIcon1 = icon("Buttons//SoundOff1.png");
+		musicOffIcon2 = icon("Buttons//SoundOff2.png");
+		musicOffIcon3 = icon("Buttons//SoundOff3.png");
 		soundButton = new JButton(musicIcon1);
 		soundButton.setRolloverIcon(musicIcon2);
 		soundButton.setPressedIcon(musicIcon3);
 		soundButton.setBounds(850, 5, musicIcon1.getIconWidth(),
 				musicIcon1.getIconHeight());
 
-		helpIcon1 = new ImageIcon("Buttons//Question1.png");
-		helpIcon2 = new ImageIcon("Buttons//Question2.png");
-		helpIcon3 = new ImageIcon("Buttons//Question3.png");
+		helpIcon1 = icon("Buttons//Question1.png");
+		helpIcon2 = icon("Buttons//Question2.png");
+		helpIcon3 = icon("Buttons//Question3.png");
 		helpButton = new JButton(helpIcon1);
 		helpButton.setRolloverIcon(helpIcon2);
 		helpButton.setPressedIcon(helpIcon3);
 		helpButton.setBounds(900, 5, 40, 40);
 
-		homeIcon1 = new ImageIcon("Buttons//Home1.png");
-		homeIcon2 = new ImageIcon("Buttons//Home2.png");
-		homeIcon3 = new ImageIcon("Buttons//Home3.png");
+		homeIcon1 = icon("Buttons//Home1.png");
+		homeIcon2 = icon("Buttons//Home2.png");
+		homeIcon3 = icon("Buttons//Home3.png");
 		homeButton = new JButton(homeIcon1);
 		homeButton.setRolloverIcon(homeIcon2);
 		homeButton.setPressedIcon(homeIcon3);
 		homeButton.setBounds(950, 5, 40, 40);
 
-		buttonIcon = new ImageIcon("Buttons//Button1.png");
-		buttonIcon2 = new ImageIcon("Buttons//Button2.png");
-		buttonIcon3 = new ImageIcon("Buttons//Button3.png");
+		buttonIcon = icon("Buttons//Button1.png");
+		buttonIcon2 = icon("Buttons//Button2.png");
+		buttonIcon3 = icon("Buttons//Button3.png");
 		startButton = new JButton("START");
 		startButton.setFont(font);
 		startButton.setIcon(buttonIcon);
@@ -377,16 +460,274 @@ public class EscapeGrid extends JPanel implements MouseListener, KeyListener,
 		add(elvis);
 		songs.add(elvis);
 
+		// Walking to clicked points is off unless chosen in the settings
+		clickToWalkBox = new JCheckBox("Click on the floor to walk there",
+				false);
+		clickToWalkBox.setBounds(550, 350, 400, 50);
+		clickToWalkBox.addActionListener(this);
+		add(clickToWalkBox);
+
 		hideSongButtons();
 
-		// Initialize sound and timer objects
-		timer = new Timer(100, new TimerEventHandler());
-		backgroundSound = Applet
-				.newAudioClip(getCompleteURL("Sounds//Song.wav"));
-		backgroundSound2 = Applet
-				.newAudioClip(getCompleteURL("Sounds//Song2.wav"));
-		currentSound = backgroundSound;
+		// Initialize timer objects
+		timer = new Timer((int) (GameLoop.STEP_NANOS / 1000000),
+				new TimerEventHandler());
+		if (Boolean.getBoolean("escape.gameLoop"))
+			gameLoop = new GameLoop(new LoopHandler());
+		assets.mark("Main menu ready");
+	}
+
+	/**
+	 * Gets a button icon from an image that has been loaded in the background
+	 * @param path the path of the image file
+	 * @return the icon
+	 */
+	private Icon icon(String path)
+	{
+		return new ImageIcon(assets.getImage(path));
+	}
+
+	/**
+	 * Takes over everything that was loaded in the background after the main
+	 * menu was shown, waiting for anything that is not ready yet
+	 * Must be called before leaving the main menu
+	 */
+	private void finishLoading()
+	{
+		if (assetsLoaded)
+			return;
+
+		// Sets game screen images
+		inventoryScreen = assets.getImage("GameScreens//Inventory.png");
+		descriptionScreen = assets.getImage("GameScreens//Display.png");
+		finalScreen = assets.getImage("GameScreens//BetweenLevels.png");
+		instructionScreen = assets.getImage("GameScreens//Instructions.png");
+		recordsScreen = assets.getImage("GameScreens//Records.png");
+		settingsScreen = assets.getImage("GameScreens//Settings.png");
+		creditsScreen = assets.getImage("GameScreens//Credits.png");
+		gameOverScreen = assets.getImage("GameScreens//EndScreen.png");
+		til = assets.getImage("til1.png");
+		wil = assets.getImage("wil1.png");
+		highlightImage = assets.getImage("Highlight.png");
+		instructionPages = assets.get(pendingInstructionPages);
+		leaderboard = assets.get(pendingLeaderboard);
+		// Runs are still ranked for this game if the saved ones can not be
+		// read, they are just not kept
+		if (leaderboard == null)
+			leaderboard = new Leaderboard(null, NO_OF_LEVELS);
 
+		// Start the sound
+		if (musicPlaying)
+			audio.play(elvis.isSelected() ? elvisSong : queenSong);
+		sounds = assets.get(pendingSounds);
+		// The game stays silent if the sound effects could not be loaded
+		if (sounds != null)
+			sounds.start();
+
+		assetsLoaded = true;
+		assets.mark("All assets ready");
+		reportStartup();
+
+		String replayFile = System.getProperty("escape.replay");
+		if (replayFile != null)
+			startReplay(new File(replayFile));
+	}
+
+	/**
+	 * Plays a recorded level again through the same handlers as the
+	 * player's input, ignoring the player until it is over
+	 * @param file the input journal
+	 */
+	private void startReplay(File file)
+	{
+		try
+		{
+			replay = InputJournal.load(file);
+		}
+		catch (IOException e)
+		{
+			System.out.println("Could not read the input journal " + file);
+			return;
+		}
+		replaySpeed = Double.parseDouble(System.getProperty(
+				"escape.replaySpeed", "1"));
+
+		hideMainMenuButtons();
+		currentLevel = replay.getLevel();
+		interpolation = 1;
+		if (!newLevel())
+			return;
+
+		liveKeyListeners = getKeyListeners();
+		liveMouseListeners = getMouseListeners();
+		liveMotionListeners = getMouseMotionListeners();
+		for (KeyListener listener : liveKeyListeners)
+			removeKeyListener(listener);
+		for (MouseListener listener : liveMouseListeners)
+			removeMouseListener(listener);
+		for (MouseMotionListener listener : liveMotionListeners)
+			removeMouseMotionListener(listener);
+		replayStart = System.nanoTime();
+		replayTimer = new Timer(5, new ActionListener()
+		{
+			public void actionPerformed(ActionEvent event)
+			{
+				replayEntries();
+			}
+		});
+		replayTimer.start();
+	}
+
+	/**
+	 * Handles every entry of the replayed journal that is due
+	 */
+	private void replayEntries()
+	{
+		long due = (long) ((System.nanoTime() - replayStart) * replaySpeed);
+		while (replay != null && replay.getNextTime() >= 0
+				&& replay.getNextTime() <= due)
+		{
+			replay.next();
+			int x = replay.getX(), y = replay.getY();
+			switch (replay.getType())
+			{
+			case InputJournal.STEP:
+				stepGame();
+				break;
+			case InputJournal.KEY_PRESS:
+			case InputJournal.KEY_RELEASE:
+			{
+				boolean pressed = replay.getType() == InputJournal.KEY_PRESS;
+				KeyEvent key = new KeyEvent(this, pressed ? KeyEvent.KEY_PRESSED
+						: KeyEvent.KEY_RELEASED, 0, 0, x,
+						KeyEvent.CHAR_UNDEFINED);
+				for (KeyListener listener : liveKeyListeners)
+					if (pressed)
+						listener.keyPressed(key);
+					else
+						listener.keyReleased(key);
+				break;
+			}
+			case InputJournal.MOUSE_PRESS:
+			{
+				MouseEvent mouse = new MouseEvent(this,
+						MouseEvent.MOUSE_PRESSED, 0, 0, x, y, 1, false);
+				for (MouseListener listener : liveMouseListeners)
+					listener.mousePressed(mouse);
+				break;
+			}
+			case InputJournal.MOUSE_MOVE:
+			{
+				MouseEvent mouse = new MouseEvent(this,
+						MouseEvent.MOUSE_MOVED, 0, 0, x, y, 0, false);
+				for (MouseMotionListener listener : liveMotionListeners)
+					listener.mouseMoved(mouse);
+				break;
+			}
+			case InputJournal.PAUSE:
+				stopClock();
+				break;
+			case InputJournal.RESUME:
+				startClock();
+				break;
+			case InputJournal.CLICK_TO_WALK:
+				session.setClickToWalk(replay.getValue() != 0);
+				break;
+			}
+		}
+		// The journal ended before the level was finished
+		if (replay != null && replay.getNextTime() < 0)
+			finishReplay();
+	}
+
+	/**
+	 * Stops replaying, tells how the replay ended and gives control back to
+	 * the player
+	 */
+	private void finishReplay()
+	{
+		replayTimer.stop();
+		session.pause();
+		for (KeyListener listener : liveKeyListeners)
+			addKeyListener(listener);
+		for (MouseListener listener : liveMouseListeners)
+			addMouseListener(listener);
+		for (MouseMotionListener listener : liveMotionListeners)
+			addMouseMotionListener(listener);
+		int level = replay.getLevel();
+		replay = null;
+
+		JOptionPane.showMessageDialog(this, "Replay of level " + level
+				+ (session.isFinished() ? " escaped in " : " stopped after ")
+				+ session.getClock().getSeconds() + " seconds\n"
+				+ session.getClock().splitReport(), "Replay",
+				JOptionPane.INFORMATION_MESSAGE);
+		mainMenu();
+	}
+
+	/**
+	 * Prints how long starting up took once the first frame has been shown
+	 * and everything has been loaded
+	 */
+	private void reportStartup()
+	{
+		if (assetsLoaded && firstFrameShown && !startupReported)
+		{
+			startupReported = true;
+			if (Boolean.getBoolean("escape.startupReport"))
+				System.out.println(assets.report());
+		}
+	}
+
+	/**
+	 * Prepares the texts and images of every instruction page
+	 * @return the pages, starting at index 1
+	 */
+	private InstructionPage[] createInstructionPages()
+	{
+		InstructionPage[] instructionPages =
+				new InstructionPage[NO_OF_INSTRUCTIONS];
+
+		// Show how to move
+		instructionPages[1] = new InstructionPage()
+				.addText("Move using the arrow keys", 150, 300)
+				.addImage("Instructions//Arrow-Keys.png", 500, 250);
+
+		// Show how to hover and view descriptions of objects
+		instructionPages[2] = new InstructionPage()
+				.addText(
+						"For a brief description, hover over an object with your mouse",
+						150, 300)
+				.addImage("Instructions//Key-hover.png", 200, 390)
+				.addImage("Instructions//Description.png", 450, 350);
+
+		// Show how to interact with objects
+		instructionPages[3] = new InstructionPage()
+				.addText("Click on an object to interact with it", 50, 250)
+				.addText("You can pick up some objects by clicking on them",
+						50, 300)
+				.addText("or by standing on them and pressing the space bar",
+						50, 350)
+				.addImage("Objects//Key.png", 675, 260)
+				.addImage("Instructions//Cursor.png", 700, 275)
+				.addImage("Instructions//Space.png", 450, 400);
+
+		// Show how to use inventory objects
+		instructionPages[4] = new InstructionPage()
+				.addText(
+						"Use these types of items by clicking on them in the inventory",
+						50, 250)
+				.addText(
+						"and then click on the next object or area to use it on",
+						50, 300)
+				.addImage("Instructions//Inventory.png", 100, 350)
+				.addImage("Objects//Trapdoor1.png", 725, 400)
+				.addImage("Instructions//Cursor.png", 800, 475);
+
+		// Show last messages
+		instructionPages[5] = new InstructionPage()
+				.addText("Have fun and Escape!", 370, 250);
+		return instructionPages;
 	}
 
 	/**
@@ -428,21 +769,25 @@ public class EscapeGrid extends JPanel implements MouseListener, KeyListener,
 	}
 
 	/**
-	 * Hides the radio buttons for song selection in the settings menu
+	 * Hides the radio buttons for song selection and the movement check box
+	 * in the settings menu
 	 */
 	private void hideSongButtons()
 	{
 		queen.setVisible(false);
 		elvis.setVisible(false);
+		clickToWalkBox.setVisible(false);
 	}
 
 	/**
-	 * Shows the radio buttons for song selection in the settings menu
+	 * Shows the radio buttons for song selection and the movement check box
+	 * in the settings menu
 	 */
 	private void showSongButtons()
 	{
 		queen.setVisible(true);
 		elvis.setVisible(true);
+		clickToWalkBox.setVisible(true);
 	}
 
 	/**
@@ -466,160 +811,223 @@ public class EscapeGrid extends JPanel implements MouseListener, KeyListener,
 		for (int level = 1; level <= NO_OF_LEVELS; level++)
 		{
 			levelButtons[level].setVisible(true);
+			// Any unlocked level may be chosen next
+			if (unlockedLevels[level])
+				prefetcher.prefetch(level);
 		}
 	}
 
 	/**
-	 * Begins the chosen level by reading in the corresponding text file
+	 * Begins the chosen level using the prepared version of its level file
+	 * @return whether the level could be started
 	 */
-	private void newLevel()
+	private boolean newLevel()
 	{
 		showScreen = GAME_SCREEN;
-		time = 0;
+		staticLayer = null;
+		shownTenths = 0;
 
-		Scanner fileIn;
 		try
 		{
-			// Reads in level information, such as level name, background image,
-			// and number of objects
-			fileIn = new Scanner(new File("Levels//Level" + currentLevel
-					+ ".txt"));
-			levelDescription = fileIn.nextLine(); // 1st line
-			String backgroundName = fileIn.nextLine();
-			background = new ImageIcon(backgroundName).getImage();
-			backObjects = new EObject[fileIn.nextInt()];
-			levelObjects = new EObject[fileIn.nextInt()];
-
-			// Initialize the character's starting point
-			character.addToStart(fileIn.nextInt(), fileIn.nextInt());
-
-			fileIn.nextLine(); // Dummy statement
-
-			// Create background Objects
-			for (int object = 0; object < backObjects.length; object++)
+			// Takes the level information, such as level name, background
+			// image, and all objects, which has usually been prepared in the
+			// background already
+			PreparedLevel prepared = prefetcher.take(currentLevel);
+			boolean clickToWalk = clickToWalkBox.isSelected();
+			if (replay != null)
 			{
-				fileIn.nextLine();
-				backObjects[object] = new EObject(fileIn.nextLine().trim(),
-						fileIn
-								.nextLine().trim(), fileIn.nextLine().trim(),
-						new Point(
-								fileIn.nextInt(), fileIn.nextInt()));
-				fileIn.nextLine();
+				journal = replay;
+				journal.rewind();
+				journal.next();
+				clickToWalk = journal.getValue() != 0;
 			}
-
-			// Create interactive Objects
-			for (int object = 0; object < levelObjects.length; object++)
-			{
-				fileIn.nextLine(); // Dummy statement
-
-				// Make the objects
-				levelObjects[object] = new EObject(fileIn.nextLine().trim(), // Name
-																				// of
-																				// object
-						fileIn.nextLine().trim(), // Description 1
-						fileIn.nextLine().trim(), // Description 2
-						fileIn.nextLine().trim(), // Description 3
-						fileIn.nextLine().trim(), // Accompanying image1
-						fileIn.nextLine().trim(), // Accompanying image2
-						fileIn.nextLine().trim(), // Accompanying image3
-						new Point(fileIn.nextInt(), fileIn.nextInt()), // Position
-																		// of
-																		// object
-						fileIn.nextInt(), // host item number
-						fileIn.nextInt(), // hidden item number
-						fileIn.nextInt(), fileIn.nextBoolean(), // isItem
-						fileIn.nextBoolean()); // isClickable
-				fileIn.nextLine(); // Dummy statement
-
-			}
-			fileIn.close();
+			else
+				journal = new InputJournal(currentLevel, clickToWalk);
+			session = new GameSession(prepared, this, journal);
+			session.setClickToWalk(clickToWalk);
+			if (sounds != null)
+				session.setSoundListener(sounds);
+
+			// Shows whether starting this level had to decode any images
+			if (Boolean.getBoolean("escape.spriteStats"))
+				System.out.println(SpriteCache.statistics());
+
+			// Prepare the next level while this one is played
+			if (currentLevel < NO_OF_LEVELS)
+				prefetcher.prefetch(currentLevel + 1);
 		}
-		catch (FileNotFoundException e)
+		catch (IOException e)
 		{
-
-			e.printStackTrace();
-			System.out.println("Invalid level file");
+			// Nothing can be played, so the player picks a level again
+			JOptionPane.showMessageDialog(this, "Level " + currentLevel
+					+ " could not be loaded.\n" + e.getMessage(),
+					"Invalid level file", JOptionPane.ERROR_MESSAGE);
+			replay = null;
+			chooseLevel();
+			repaint();
+			return false;
 		}
 
 		// Start the level timer
-		timer.start();
-
+		startClock();
+		return true;
 	}// newLevel method
 
+	/**
+	 * Starts or resumes counting the time of the current level
+	 */
+	private void startClock()
+	{
+		journal.record(InputJournal.RESUME);
+		session.resume();
+		// A replay steps the level itself
+		if (replay != null)
+			return;
+		if (gameLoop != null)
+		{
+			lastDrawn = null;
+			gameLoop.start();
+		}
+		else
+			timer.start();
+	}
+
+	/**
+	 * Pauses counting the time of the current level
+	 */
+	private void stopClock()
+	{
+		if (gameLoop != null)
+			gameLoop.stop();
+		else
+			timer.stop();
+		// The help button also works before any level was started
+		if (session == null)
+			return;
+		journal.record(InputJournal.PAUSE);
+		session.pause();
+		// Keys released while paused would never be seen
+		input.clear();
+	}
+
+	/**
+	 * Advances the current level by one step of the timer or game loop,
+	 * moving the character while arrow keys are held
+	 */
+	private void stepGame()
+	{
+		// The "You" message disappears when the character moves
+		boolean charDescription = session.isShowingCharDescription();
+		ECharacter character = session.getCharacter();
+		Rectangle before = character.getBounds();
+		character.rememberPosition();
+
+		journal.record(InputJournal.STEP);
+		session.update(input);
+
+		if (charDescription && !session.isShowingCharDescription())
+			repaint(DESCRIPTION_AREA);
+		// The game loop draws the moving character itself
+		if ((gameLoop == null || replay != null)
+				&& !before.equals(character.getBounds()))
+			repaint(before.union(character.getBounds()));
+
+		// Only redraw the time when the tenths change
+		if (session.getTime() != shownTenths)
+		{
+			shownTenths = session.getTime();
+			repaint(TIME_AREA);
+		}
+	}
+
 	/**
 	 * Stops the current level, clears remaining inventory objects, Stops the
 	 * timer, checks for new records
 	 */
 	private void levelOver()
 	{
+		if (replay != null)
+		{
+			finishReplay();
+			return;
+		}
+		stopClock();
 
-		timer.stop();
+		// Keep how this level was played to replay it later
+		try
+		{
+			journal.save(new File("Journals", "Level" + currentLevel
+					+ ".journal"));
+		}
+		catch (IOException e)
+		{
+			System.out.println("Could not save the input journal.");
+		}
 
-		inventoryObjects.clear();
+		// The clock stopped when the last object was used
+		double time = session.getClock().getSeconds();
+		lastTime = time;
+		int place = leaderboard.getPlace(currentLevel, time);
+		String result = "You escaped level " + currentLevel + " in " + time
+				+ " seconds\nPlace " + place + " of "
+				+ (leaderboard.getRunCount(currentLevel) + 1) + "\n"
+				+ session.getClock().splitReport();
+		// Only runs that play back to the same time count
+		int verdict = RunVerifier.verify(journal.toByteArray(), currentLevel,
+				session.getLevel().getData(), time);
+		lastCounted = verdict == RunVerifier.ACCEPTED;
+		if (verdict != RunVerifier.ACCEPTED)
+			JOptionPane.showMessageDialog(this, "You escaped level "
+					+ currentLevel + " in " + time + " seconds\n"
+					+ "but the run could not be verified ("
+					+ RunVerifier.describe(verdict) + ") and does not count.",
+					"Escaped", JOptionPane.WARNING_MESSAGE);
 		// Update the current records if necessary
-		if (time / 10.0 < timeRecords[currentLevel])
+		else if (records.isRecord(currentLevel, time))
 		{
-			// Get the player name and ensure it is valid
-			do
-			{
-				playerName = JOptionPane
-						.showInputDialog(
-								this,
-								"You beat the record time!\nWith a maximum of 5 characters,\nPlease enter your name/initials:",
-								JOptionPane.INPUT_VALUE_PROPERTY);
-			}
-			while (playerName == null || playerName.equals("")
-					|| playerName.length() > 5);
-					
-			// Overwrite the records text file
-			PrintWriter overwriteRecord;
-			try
-			{
-				// Need to adjust println statements to match a certain formats
-				overwriteRecord = new PrintWriter(new FileWriter(
-						"records.txt"));
-				int levelIndex = 1;
-				while (levelIndex < currentLevel)
-				{
-					overwriteRecord.println(timeRecords[levelIndex] + " "
-							+ recordHolders[levelIndex]);
-					levelIndex++;
-				}
-				overwriteRecord.println(time / 10.0 + " " + playerName);
-				levelIndex++;
-				while (levelIndex <= NO_OF_LEVELS)
-				{
-					overwriteRecord.println(timeRecords[levelIndex] + " "
-							+ recordHolders[levelIndex]);
-					levelIndex++;
-				}
-				overwriteRecord.close();
-				timeRecords[currentLevel] = time / 10.0;
-				recordHolders[currentLevel] = playerName;
-			}
-			catch (IOException e)
-			{
-				e.printStackTrace();
-				System.out.println("Record file corrupted.");
-			}
-			// Return the player's name to null so it will not carry over into
-			// the next level
-			playerName = null;
+			askName("You beat the record time!\n" + result);
+			// Saved in the background so the game does not wait for the disk
+			records.record(currentLevel, time, playerName);
 		}
+		// Runs that make the leaderboard get a name as well
+		else if (place <= Leaderboard.TOP)
+			askName("You made place " + place + " on the leaderboard!\n"
+					+ result);
+		// Every run is kept under a name, which carries over to later levels
+		else if (playerName == null)
+			askName(result);
 		else
-			JOptionPane.showMessageDialog(this, "You escaped level "
-					+ currentLevel
-					+ " in " + (time / 10.0) + " seconds", "Congratulations",
+			JOptionPane.showMessageDialog(this, result, "Congratulations",
 					JOptionPane.WARNING_MESSAGE);
+		if (verdict == RunVerifier.ACCEPTED)
+			leaderboard.add(currentLevel, time, playerName, System
+					.currentTimeMillis());
 
-		// Remove any messages from the last level and unlock the next level
-		showDescription = false;
-
+		// Unlock the next level
 		showScreen = FINISH_SCREEN;
 		currentLevel++;
 		showEndLevelScreen();
 	}
 
+	/**
+	 * Asks for the player's name until a valid one is entered, suggesting
+	 * the name entered last
+	 * @param message what the name is asked for
+	 */
+	private void askName(String message)
+	{
+		String name;
+		do
+		{
+			name = JOptionPane.showInputDialog(this, message
+					+ "\n\nWith a maximum of 5 characters,"
+					+ "\nPlease enter your name/initials:",
+					playerName == null ? "" : playerName);
+		}
+		while (name == null || name.equals("") || name.length() > 5);
+		playerName = name;
+	}
+
 	/**
 	 * Show the screen visible when a level is completed This could be an in
 	 * between screen or the 'Game Over' screen
@@ -641,35 +1049,36 @@ public class EscapeGrid extends JPanel implements MouseListener, KeyListener,
 	}
 
 	/**
-	 * Adds a given object to the inventory array
-	 * @param currentObject the currentObject
+	 * Draws everything on the game screen that does not change during a level
+	 * into one image: the background, both panels, the background objects and
+	 * the labels
+	 * @return the image
 	 */
-	private void addToInventory(EObject currentObject)
+	private Image createStaticLayer()
 	{
-		inventoryObjects.add(currentObject);
-		// Set the x position of the last inventory object added to number
-		inventoryObjects.get(inventoryObjects.size() - 1).x = (inventoryObjects
-				.size() - 1) * 50 + 50;
-		inventoryObjects.get(inventoryObjects.size() - 1).y = 550;
-	}
-
-	/**
-	 * Gets the URL needed for audio clips
-	 * @param fileName the name of the audio file
-	 * @return the complete URL of the audio clip
-	 */
-	private URL getCompleteURL(String fileName)
-	{
-		try
-		{
-			return new URL("file:" + System.getProperty("user.dir") + "/"
-					+ fileName);
-		}
-		catch (MalformedURLException e)
-		{
-			System.err.println(e.getMessage());
-		}
-		return null;
+		Image layer = createImage(SCREEN_LENGTH, SCREEN_HEIGHT);
+		Graphics g = layer.getGraphics();
+		g.setColor(getBackground());
+		g.fillRect(0, 0, SCREEN_LENGTH, SCREEN_HEIGHT);
+
+		EObject[] backObjects = session.getBackObjects();
+		g.drawImage(session.getLevel().getBackground(), 0, 0, this);
+		g.drawImage(inventoryScreen, 0, 500, this);
+		for (int object = 0; object < backObjects.length; object++)
+			backObjects[object].draw(g);
+		g.drawImage(descriptionScreen, 500, 500, this);
+
+		g.setFont(font);
+		g.setColor(Color.black);
+		g.drawString("Inventory", 197, 530);
+		g.drawString("Description", 689, 530);
+
+		// Draw the level number and name
+		g.setColor(Color.YELLOW);
+		g.drawString("Level: " + currentLevel, 475, 32);
+		g.drawString(session.getLevel().getData().getDescription(), 50, 32);
+		g.dispose();
+		return layer;
 	}
 
 	/**
@@ -678,8 +1087,20 @@ public class EscapeGrid extends JPanel implements MouseListener, KeyListener,
 	 */
 	public void paintComponent(Graphics g)
 	{
+		renderStats.frameStarted();
+		if (!firstFrameShown)
+		{
+			firstFrameShown = true;
+			assets.mark("First frame");
+			reportStartup();
+		}
 		super.paintComponent(g);
 
+		// Only the area that needs repainting has to be drawn
+		Rectangle clip = g.getClipBounds();
+		if (clip == null)
+			clip = new Rectangle(SCREEN_SIZE);
+
 		// Determines which screen to show
 		switch (showScreen)
 		{
@@ -692,101 +1113,76 @@ public class EscapeGrid extends JPanel implements MouseListener, KeyListener,
 		// Level (in-game)
 		case GAME_SCREEN:
 		{
-			// Draws the game screen
-			g.drawImage(background, 0, 0, this);
-
-			// Draw the inventory screen
-			g.clearRect(0, 500, 500, 0);
-			g.drawImage(inventoryScreen, 0, 500, this);
-			if (highlight)
+			// Draws everything that stays the same during the level at once
+			if (staticLayer == null)
+				staticLayer = createStaticLayer();
+			g.drawImage(staticLayer, 0, 0, this);
+
+			// Draw the highlight of the selected inventory object
+			EObject clickedObject = session.getClickedObject();
+			if (session.isHighlighted())
 				g.drawImage(highlightImage, clickedObject.x, clickedObject.y,
 						this);
 
 			// Draws inventory objects
-			if (inventoryObjects != null)
-			{
-				for (int objectNo = 0; objectNo < inventoryObjects
-						.size(); objectNo++)
-					inventoryObjects.get(objectNo).draw(g);
-			}
-
-			// Draws all background objects
-			for (int object = 0; object < backObjects.length; object++)
-				backObjects[object].draw(g);
+			ArrayList<EObject> inventoryObjects = session.getInventoryObjects();
+			for (int objectNo = 0; objectNo < inventoryObjects.size(); objectNo++)
+				inventoryObjects.get(objectNo).draw(g);
 
 			// Draws all level objects provided they should be visible
+			EObject[] levelObjects = session.getLevelObjects();
 			for (int object = 0; object < levelObjects.length; object++)
 			{
-				if (levelObjects[object].isVisible())
+				if (levelObjects[object].isVisible()
+						&& levelObjects[object].intersects(clip))
 					levelObjects[object].draw(g);
 			}
 
-			// Draw everything contained in the descriptions screen
-			g.drawImage(descriptionScreen, 500, 500, this);
-			// Display Out Of Range message
-			if (outOfRange)
+			// Display Nothing Interesting Happens message
+			g.setFont(font);
+			EObject currentObject = session.getCurrentObject();
+			if (!session.isSomethingInteresting())
 			{
-				g.setFont(font);
-				g.clearRect(500, 500, 500, 200);
-				g.drawImage(descriptionScreen, 500, 500, this);
 				g.setColor(Color.black);
-				g.drawString("Out of range...", DISPLAY_DESCRIPTION.x,
+				g.drawString("Nothing interesting happens...",
+						DISPLAY_DESCRIPTION.x,
 						DISPLAY_DESCRIPTION.y);
 			}
 			// Show the description of a currently clicked object
-			if (showDescription && currentObject != null)
+			else if (session.isShowingDescription() && currentObject != null)
 			{
-				g.clearRect(500, 500, 500, 200);
-				g.drawImage(descriptionScreen, 500, 500, this);
 				g.setColor(Color.WHITE);
-				g.setFont(font);
 				currentObject.displayName(g, DISPLAY_NAME.x,
 						DISPLAY_NAME.y);
-				g.setFont(font);
 				g.setColor(Color.BLACK);
 				currentObject.displayDescription(g, DISPLAY_DESCRIPTION.x,
 						DISPLAY_DESCRIPTION.y);
 			}
-			// When something in range that isn't an object is clicked, nothing
-			// should be displayed in the description screen
-			else if (charDescription)
-			{
-				g.setFont(font);
-				g.setColor(Color.WHITE);
-				g.drawString("You", DISPLAY_NAME.x,
-						DISPLAY_NAME.y);
-			}
-			else if (!outOfRange)
-			{
-				g.clearRect(500, 500, 500, 200);
-				g.drawImage(descriptionScreen, 500, 500, this);
-			}
-
-			// Display Nothing Interesting Happens message
-			if (!somethingInteresting)
+			else
 			{
-				g.setFont(font);
-				g.clearRect(500, 500, 500, 200);
-				g.drawImage(descriptionScreen, 500, 500, this);
-				g.setColor(Color.black);
-				g.drawString("Nothing interesting happens...",
-						DISPLAY_DESCRIPTION.x,
-						DISPLAY_DESCRIPTION.y);
+				// Display Out Of Range message
+				if (session.isOutOfRange())
+				{
+					g.setColor(Color.black);
+					g.drawString("Out of range...", DISPLAY_DESCRIPTION.x,
+							DISPLAY_DESCRIPTION.y);
+				}
+				// When something in range that isn't an object is clicked,
+				// nothing should be displayed in the description screen
+				if (session.isShowingCharDescription())
+				{
+					g.setColor(Color.WHITE);
+					g.drawString("You", DISPLAY_NAME.x,
+							DISPLAY_NAME.y);
+				}
 			}
-			g.setFont(font);
-			g.setColor(Color.black);
-			g.drawString("Inventory", 197, 530);
-			g.drawString("Description", 689, 530);
 
-			// Draw the level number and the current time
-			g.setFont(font);
+			// Draw the current time
 			g.setColor(Color.YELLOW);
-			g.drawString("Level: " + currentLevel, 475, 32);
-			g.drawString("Time: " + (time / 10.0), 580, 32);
-			g.drawString(levelDescription, 50, 32);
+			g.drawString("Time: " + (session.getTime() / 10.0), 580, 32);
 
 			// Draw the character on top of everything else
-			character.draw(g);
+			session.getCharacter().draw(g, interpolation);
 
 			break;
 		}
@@ -803,8 +1199,16 @@ public class EscapeGrid extends JPanel implements MouseListener, KeyListener,
 			g.setFont(font);
 			g.setColor(Color.YELLOW);
 			g.drawString("Record Time for Level " + (currentLevel - 1) + ": "
-					+ timeRecords[currentLevel - 1] + " seconds by "
-					+ recordHolders[currentLevel - 1], 200, 300);
+					+ records.getTime(currentLevel - 1) + " seconds by "
+					+ records.getHolder(currentLevel - 1), 200, 300);
+			if (lastCounted)
+				g.drawString("Your time: " + lastTime + " seconds, place "
+						+ leaderboard.getPlace(currentLevel - 1, lastTime)
+						+ " of " + leaderboard.getRunCount(currentLevel - 1),
+						200, 340);
+			else
+				g.drawString("Your time: " + lastTime
+						+ " seconds, not counted", 200, 340);
 			break;
 		}
 		// Choose your level screen
@@ -843,70 +1247,24 @@ public class EscapeGrid extends JPanel implements MouseListener, KeyListener,
 			g.setFont(font);
 			g.setColor(Color.WHITE);
 
-			// Show how to move
-			if (showInstruction == 1)
-			{
-				g.drawString("Move using the arrow keys", 150, 300);
-				g.drawImage((new ImageIcon("Instructions//Arrow-Keys.png")
-						.getImage()), 500, 250, this);
-			}
-			// Show how to hover and view descriptions of objects
-			else if (showInstruction == 2)
-			{
-				g.drawString(
-						"For a brief description, hover over an object with your mouse",
-						150, 300);
-				g.drawImage((new ImageIcon("Instructions//Key-hover.png")
-						.getImage()), 200, 390, this);
-				g.drawImage((new ImageIcon("Instructions//Description.png")
-						.getImage()), 450, 350, this);
-			}
-			// Show how to interact with objects
-			else if (showInstruction == 3)
-			{
-				g.drawString(
-						"Click on an object to interact with it", 50, 250);
-				g.drawString(
-						"You can pick up some objects by clicking on them",
-						50, 300);
-				g.drawString(
-						"or by standing on them and pressing the space bar",
-						50, 350);
-				g.drawImage((new ImageIcon("Objects//Key.png").getImage()),
-						675, 260,
-						this);
-				g.drawImage((new ImageIcon("Instructions//Cursor.png")
-						.getImage()), 700, 275, this);
-				g.drawImage((new ImageIcon("Instructions//Space.png")
-						.getImage()), 450, 400, this);
-
-			}
-			// Show how to use inventory objects
-			else if (showInstruction == 4)
-			{
-				g.drawString(
-						"Use these types of items by clicking on them in the inventory",
-						50, 250);
-				g.drawString(
-						"and then click on the next object or area to use it on",
-						50, 300);
-				g.drawImage((new ImageIcon("Instructions//Inventory.png")
-						.getImage()), 100, 350, this);
-
-				g.drawImage((new ImageIcon("Objects//Trapdoor1.png")
-						.getImage()), 725, 400, this);
-				g.drawImage((new ImageIcon("Instructions//Cursor.png")
-						.getImage()), 800, 475, this);
-			}
-			// Show last messages
-			else if (showInstruction == 5)
-				g.drawString("Have fun and Escape!", 370, 250);
+			// Draw the current instruction page
+			if (showInstruction < NO_OF_INSTRUCTIONS
+					&& instructionPages != null)
+				instructionPages[showInstruction].draw(g, this);
 			break;
 		}
 		// Records screen
 		case RECORDS:
 		{
 			g.drawImage(recordsScreen, 0, 0, this);
+			g.setFont(font);
+			if (recordsLevel > 0)
+			{
+				drawLeaderboard(g, recordsLevel);
+				break;
+			}
+			g.setColor(Color.WHITE);
+			g.drawString("Click a level to see its best runs", 100, 180);
 
 			// Display the record time and record holder of levels 1-5 if
 			// they have been unlocked
@@ -924,11 +1282,13 @@ public class EscapeGrid extends JPanel implements MouseListener, KeyListener,
 				// If the level has been unlocked, display record for it
 				if (unlockedLevels[level])
 				{
-					g.drawString(timeRecords[level] + "s", 180 * level - 90,
+					g.drawString(records.getTime(level) + "s", 180 * level - 90,
 							290);
-					g.drawString("By " + recordHolders[level],
+					g.drawString("By " + records.getHolder(level),
 							180 * level - 134,
 							332);
+					g.drawString("Runs: " + leaderboard.getRunCount(level),
+							180 * level - 100, 380);
 				}
 				// If the level has not been unlocked records are not applicable
 				else
@@ -948,10 +1308,12 @@ public class EscapeGrid extends JPanel implements MouseListener, KeyListener,
 				// If the level has been unlocked, display record for it
 				if (unlockedLevels[level])
 				{
-					g.drawString(timeRecords[level] + "s",
+					g.drawString(records.getTime(level) + "s",
 							180 * (level - 5) - 90, 490);
-					g.drawString("By " + recordHolders[level],
+					g.drawString("By " + records.getHolder(level),
 							180 * (level - 5) - 134, 532);
+					g.drawString("Runs: " + leaderboard.getRunCount(level),
+							180 * (level - 5) - 100, 580);
 				}
 				// If the level has not been unlocked records are not applicable
 				else
@@ -966,6 +1328,7 @@ public class EscapeGrid extends JPanel implements MouseListener, KeyListener,
 			g.setFont(font);
 			g.setColor(Color.BLACK);
 			g.drawString("Song Choices", 550, 185);
+			g.drawString("Movement", 550, 335);
 			break;
 		}
 		// Display credits in the credits screen
@@ -984,8 +1347,52 @@ public class EscapeGrid extends JPanel implements MouseListener, KeyListener,
 			break;
 		}
 		}
+		renderStats.frameFinished(clip);
 	}// paint component method
 
+	/**
+	 * Draws the best runs of a level on the records screen
+	 * @param g the graphics to draw on
+	 * @param level the level
+	 */
+	private void drawLeaderboard(Graphics g, int level)
+	{
+		g.setColor(Color.WHITE);
+		g.drawString("Level " + level + ", runs: "
+				+ leaderboard.getRunCount(level) + " (click to go back)", 100,
+				180);
+		Leaderboard.Run[] best = leaderboard.getTop(level);
+		for (int place = 0; place < best.length; place++)
+		{
+			int y = 230 + place * 40;
+			g.drawString((place + 1) + ".", 150, y);
+			g.drawString(best[place].getTime() + "s", 220, y);
+			g.drawString(best[place].getName(), 380, y);
+			if (best[place].getDate() != 0)
+				g.drawString(dateFormat.format(new Date(best[place]
+						.getDate())), 560, y);
+		}
+	}
+
+	/**
+	 * Finds the level whose square on the records screen was clicked
+	 * @param point where was clicked
+	 * @return the level, or 0 if no unlocked level was clicked
+	 */
+	private int recordsLevelAt(Point point)
+	{
+		for (int level = 1; level <= NO_OF_LEVELS; level++)
+		{
+			int column = (level - 1) % 5 + 1;
+			int top = level <= 5 ? 250 : 450;
+			if (unlockedLevels[level] && point.x >= 180 * column - 100
+					&& point.x < 180 * column && point.y >= top
+					&& point.y < top + 100)
+				return level;
+		}
+		return 0;
+	}
+
 	// Inner class to handle mouse events
 	private class MouseHandler extends MouseAdapter
 	{
@@ -996,114 +1403,21 @@ public class EscapeGrid extends JPanel implements MouseListener, KeyListener,
 
 			if (showScreen == GAME_SCREEN)
 			{
+				journal.record(InputJournal.MOUSE_PRESS, clickedPoint.x,
+						clickedPoint.y);
+				session.click(clickedPoint);
 				repaint(0);
-				showDescription = false;
-				somethingInteresting = true;
-
-				// if the mouse is in the description screen
-				// this stops annoying out of range messages
-				if (clickedPoint.y > 500 && clickedPoint.x > 500)
-				{
-					outOfRange = false;
-					repaint(0);
-					return;
-				}
-				// If the player clicks in the inventory
-				else if (clickedPoint.y > 500 && clickedPoint.x < 500)
-				{
-					// if an inventory object is selected
-					if (currentObject != null
-							&& currentObject.contains(clickedPoint))
-					{
-						// De-select the object if it was what it was before
-						if (clickedObject == currentObject)
-						{
-							clickedObject = null;
-							highlight = false;
-						}
-						// Select an inventory item
-						else
-						{
-							clickedObject = currentObject;
-							showDescription = true;
-							highlight = true;
-						}
-						return;
-					}
-				}
-				// If what you clicked on it is in range of the character
-				else if (character.isInRange(clickedPoint))
-				{
-					outOfRange = false;
 
-					// If an object is clicked
-					if (currentObject != null)
-					{
-						showDescription = true;
-						// If the object is an item it will be added to the
-						// inventory
-						if (currentObject.isItem())
-						{
-							addToInventory(currentObject);
-							currentObject.changeVisibility();
-							currentObject = null;
-						}
-						// If the right inventory object that was clicked and
-						// used on level object, something will happen
-						else if (currentObject.toUseItemNo() >= 0
-								&& ((clickedObject != null
-								&& clickedObject == levelObjects[currentObject
-										.toUseItemNo()])))
-						{
-							inventoryObjects.remove(clickedObject);
-							clickedObject = null;
-							highlight = false;
-
-							// Reveal the hidden item if possible
-							currentObject.revealSecrets(levelObjects);
-
-							// If the last object is used, the level is finished
-							// We must write the last level object last in the text file
-							if (levelObjects[levelObjects.length - 1] == currentObject)
-							{
-								currentObject.changeImage(3);
-								levelOver();
-							}
-						}
-						// If the wrong item is selected
-						else if (clickedObject != null)
-						{
-							somethingInteresting = false;
-							clickedObject = null;
-							highlight = false;
-							return;
-						}
-						// If it can be changed just by clicking on it
-						else if (currentObject
-								.toUseItemNo() == -1)
-							currentObject.revealSecrets(levelObjects);
-						else
-							currentObject.changeImage();
-					}
-					// If an empty space is clicked nothing interesting occurs
-					else if (clickedObject != null)
-					{
-						clickedObject = null;
-						highlight = false;
-						somethingInteresting = false;
-					}
-
-					repaint(0);
-					return;
-
-				}
-				// If the click occurred outside the character's range,
-				// the description box will be cleared
-				else
-				{
-					repaint(0);
-					outOfRange = true;
-				}
+				// If the last object was used, the level is finished
+				if (session.isFinished())
+					levelOver();
+			}
+			// Show or hide the best runs of a level
+			else if (showScreen == RECORDS)
+			{
+				recordsLevel = recordsLevel > 0 ? 0
+						: recordsLevelAt(clickedPoint);
+				repaint();
 			}
 		}
 	}
@@ -1115,83 +1429,11 @@ public class EscapeGrid extends JPanel implements MouseListener, KeyListener,
 		{
 			if (showScreen == GAME_SCREEN)
 			{
-				Point selectedPoint = event.getPoint();
-
-				somethingInteresting = true;
-				outOfRange = false;
-				charDescription = false;
-
-				// If the mouse is in the game screen
-				if (selectedPoint.x >= 0 && selectedPoint.x <= 1000
-						&& selectedPoint.y >= 0 && selectedPoint.y <= 500)
-				{
-
-					// Goes through all background objects and return if over an
-					// object
-					for (int object = 0; object < backObjects.length; object++)
-					{
-						if (backObjects[object].contains(selectedPoint))
-						{
-							currentObject = backObjects[object];
-							showDescription = true;
-							repaint(0);
-							return;
-						}
-					}
-
-					// Goes through all level objects and return if over an
-					// object
-					for (int object =
-							levelObjects.length - 1; object >= 0; object--)
-					{
-						// If the user hovers on a visible object
-						if (levelObjects[object].contains(selectedPoint)
-								&& levelObjects[object].isVisible())
-						{
-
-							currentObject = levelObjects[object];
-							currentObject.changeDescription(1);
-							showDescription = true;
-
-							repaint(0);
-							return;
-						}
-					}
-				}
-				// If the mouse isn't in the game screen (inventory or
-				// description)
-				else
-				{
-					// Display inventory hover messages and return if over
-					// object
-					for (int object = 0; object < inventoryObjects.size(); object++)
-					{
-						if (inventoryObjects.get(object)
-								.contains(selectedPoint))
-						{
-
-							currentObject = inventoryObjects.get(object);
-							showDescription = true;
-							repaint(0);
-							return;
-						}
-					}
-
-				}
-
-				// Add character hover text "You"
-				if (character.contains(selectedPoint))
-				{
-					showDescription = false;
-					charDescription = true;
-					repaint(0);
-					return;
-				}
-
-				// If hovering over nothing, nothing is displayed
-				currentObject = null;
-				showDescription = false;
-				repaint(0);
+				journal.record(InputJournal.MOUSE_MOVE, event.getX(), event
+						.getY());
+				// Only the description screen can change when hovering
+				session.hover(event.getPoint());
+				repaint(DESCRIPTION_AREA);
 			}
 		}
 
@@ -1200,7 +1442,7 @@ public class EscapeGrid extends JPanel implements MouseListener, KeyListener,
 	private class KeyHandler extends KeyAdapter
 	{
 		/**
-		 * Responds to a keyPressed event by moving the character in response
+		 * Responds to a keyPressed event by picking up items
 		 * @param event information about the key pressed event
 		 */
 		public void keyPressed(KeyEvent event)
@@ -1208,30 +1450,20 @@ public class EscapeGrid extends JPanel implements MouseListener, KeyListener,
 			// If the action occurred while a level is being played
 			if (showScreen == GAME_SCREEN)
 			{
-				// Do not display any character message when movingg
-				charDescription = false;
-
-				// Move into the specified direction
-				if (event.getKeyCode() == KeyEvent.VK_LEFT)
-					character.moveLeft(levelObjects, backObjects);
-				else if (event.getKeyCode() == KeyEvent.VK_RIGHT)
-					character.moveRight(levelObjects, backObjects);
-				else if (event.getKeyCode() == KeyEvent.VK_DOWN)
-					character.moveDown(levelObjects, backObjects);
-				else if (event.getKeyCode() == KeyEvent.VK_UP)
-					character.moveUp(levelObjects, backObjects);
-				else if (event.getKeyCode() == KeyEvent.VK_SPACE)
+				// Arrow keys are looked at once per step by stepGame
+				// Pick up the items the character is standing on
+				if (event.getKeyCode() == KeyEvent.VK_SPACE)
 				{
-					for (int object = 0; object < levelObjects.length; object++)
-						if (character.contains(levelObjects[object])
-								&& levelObjects[object].isItem())
-						{
-							addToInventory(levelObjects[object]);
-							levelObjects[object].changeVisibility();
-							currentObject = null;
-						}
+					// The "You" message disappears as well
+					if (session.isShowingCharDescription())
+						repaint(DESCRIPTION_AREA);
+					// Picked up items disappear from under the character
+					if (session.pickUp())
+					{
+						repaint(INVENTORY_AREA);
+						repaint(session.getCharacter().getBounds());
+					}
 				}
-				repaint(0);
 			}
 		}
 	}
@@ -1242,6 +1474,9 @@ public class EscapeGrid extends JPanel implements MouseListener, KeyListener,
 	@Override
 	public void actionPerformed(ActionEvent event)
 	{
+		// Everything has usually been loaded long before the first button
+		// is pressed
+		finishLoading();
 		Object source = event.getSource();
 
 		// Start the game by hiding menu buttons and advancing to the levels
@@ -1315,6 +1550,7 @@ public class EscapeGrid extends JPanel implements MouseListener, KeyListener,
 		else if (source == recordsButton)
 		{
 			showScreen = RECORDS;
+			recordsLevel = 0;
 			hideMainMenuButtons();
 			menuButton.setVisible(true);
 		}
@@ -1352,7 +1588,7 @@ public class EscapeGrid extends JPanel implements MouseListener, KeyListener,
 			// Stop the music if it is already playing
 			if (musicPlaying)
 			{
-				currentSound.stop();
+				audio.stop();
 				// Change images
 				soundButton.setIcon(musicOffIcon1);
 				soundButton.setRolloverIcon(musicOffIcon2);
@@ -1362,7 +1598,7 @@ public class EscapeGrid extends JPanel implements MouseListener, KeyListener,
 			// Begin to loop the music if it is off
 			else
 			{
-				currentSound.loop();
+				audio.play(elvis.isSelected() ? elvisSong : queenSong);
 				// Change images
 				soundButton.setIcon(musicIcon1);
 				soundButton.setRolloverIcon(musicIcon2);
@@ -1376,7 +1612,7 @@ public class EscapeGrid extends JPanel implements MouseListener, KeyListener,
 			if (showScreen != INSTRUCTIONS)
 			{
 				// Pause the in-game timer
-				timer.stop();
+				stopClock();
 				JOptionPane
 						.showMessageDialog(
 								this,
@@ -1392,7 +1628,7 @@ public class EscapeGrid extends JPanel implements MouseListener, KeyListener,
 								JOptionPane.INFORMATION_MESSAGE);
 				// Resume the in-game timer
 				if (showScreen == GAME_SCREEN)
-					timer.start();
+					startClock();
 			}
 		}
 		// Displays the main menu
@@ -1405,7 +1641,7 @@ public class EscapeGrid extends JPanel implements MouseListener, KeyListener,
 			if (showScreen == GAME_SCREEN)
 			{
 				// Stop the timer if in-game
-				timer.stop();
+				stopClock();
 				// Display warning and receive input from it
 				int choice = JOptionPane.showConfirmDialog(this,
 						"All current level progress will be lost.",
@@ -1413,15 +1649,12 @@ public class EscapeGrid extends JPanel implements MouseListener, KeyListener,
 				// If the palyer wants to return to the main menu, we shall do
 				// so
 				if (choice == JOptionPane.OK_OPTION)
-				{
-					inventoryObjects.clear();
 					mainMenu();
-				}
 				// If the player cancels or closes the return to menu box
 				else
 				{
 					// Resume the timer
-					timer.start();
+					startClock();
 					this.requestFocusInWindow();
 					// Avoid unnecessary repainting and focus requests
 					return;
@@ -1433,25 +1666,36 @@ public class EscapeGrid extends JPanel implements MouseListener, KeyListener,
 		// Change the song to Queen - "I Want to Break Free"
 		else if (source == queen)
 		{
-			currentSound.stop();
 			soundButton.setIcon(musicIcon1);
 			soundButton.setRolloverIcon(musicIcon2);
 			soundButton.setPressedIcon(musicIcon3);
-			currentSound = backgroundSound;
-			currentSound.loop();
+			// Fades from the other song
+			audio.play(queenSong);
 			musicPlaying = true;
 		}
 		// Change the song to Elvis - "Jailhouse Rock"
 		else if (source == elvis)
 		{
-			currentSound.stop();
 			soundButton.setIcon(musicIcon1);
 			soundButton.setRolloverIcon(musicIcon2);
 			soundButton.setPressedIcon(musicIcon3);
-			currentSound = backgroundSound2;
-			currentSound.loop();
+			// Fades from the other song
+			audio.play(elvisSong);
 			musicPlaying = true;
 		}
+		// Walking to clicked points is passed on to every new level
+		else if (source == clickToWalkBox)
+		{
+			// Only a level being played takes the new setting, others read
+			// it when they start
+			if (showScreen == GAME_SCREEN && session != null
+					&& !session.isFinished())
+			{
+				journal.record(InputJournal.CLICK_TO_WALK, clickToWalkBox
+						.isSelected() ? 1 : 0);
+				session.setClickToWalk(clickToWalkBox.isSelected());
+			}
+		}
 		// If a level selection button is clicked (Level 1 - 10)
 		else
 		{
@@ -1491,26 +1735,66 @@ public class EscapeGrid extends JPanel implements MouseListener, KeyListener,
 	}
 
 	/**
-	 * Handles all timing events that include counting time
+	 * Handles all timing events that include moving the character
 	 */
 	private class TimerEventHandler implements ActionListener
 	{
-		// The following method is called every 100 miliseconds
+		// The following method is called every 50 miliseconds
 		/**
-		 * Count the number of deci-seconds
+		 * Moves the character and updates the time shown
 		 * @param event contains information about timer events
 		 */
 		public void actionPerformed(ActionEvent event)
 		{
-			// Add to the current time
-			time++;
-			repaint(0);
+			stepGame();
+		}
+	}
+
+	/**
+	 * Steps and draws the game screen when the game loop is used
+	 */
+	private class LoopHandler implements GameLoop.Listener
+	{
+		/**
+		 * Moves the character while arrow keys are held and updates the time
+		 * shown
+		 */
+		public void step()
+		{
+			if (showScreen == GAME_SCREEN)
+				stepGame();
+		}
+
+		/**
+		 * Draws the character between its last two positions
+		 * @param alpha how far the frame is between the two
+		 */
+		public void render(double alpha)
+		{
+			if (showScreen != GAME_SCREEN)
+				return;
+
+			interpolation = alpha;
+			Rectangle drawn = session.getCharacter().getDrawnBounds(alpha);
+			if (!drawn.equals(lastDrawn))
+			{
+				paintImmediately(lastDrawn == null ? drawn : drawn
+						.union(lastDrawn));
+				lastDrawn = drawn;
+			}
 		}
 	}
 
+	/**
+	 * Remembers that a key is no longer held
+	 * @param event information about the key released event
+	 */
 	@Override
-	public void keyReleased(KeyEvent e)
+	public void keyReleased(KeyEvent event)
 	{
+		if (showScreen == GAME_SCREEN)
+			journal.record(InputJournal.KEY_RELEASE, event.getKeyCode());
+		input.release(event.getKeyCode());
 	}
 
 	@Override
@@ -1547,9 +1831,15 @@ public class EscapeGrid extends JPanel implements MouseListener, KeyListener,
 
 	}
 
+	/**
+	 * Remembers that a key is held
+	 * @param event information about the key pressed event
+	 */
 	@Override
-	public void keyPressed(KeyEvent arg0)
+	public void keyPressed(KeyEvent event)
 	{
-
+		if (showScreen == GAME_SCREEN)
+			journal.record(InputJournal.KEY_PRESS, event.getKeyCode());
+		input.press(event.getKeyCode());
 	}
 }
\ No newline at end of file
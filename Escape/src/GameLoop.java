@@ -0,0 +1,208 @@
+/**
+ * Runs the game logic in fixed steps and draws frames in between on its own
+ * thread, instead of a Swing timer
+ * The logic always advances by STEP_NANOS at a time, however long frames
+ * take, and every frame is told how far it is between two steps so that
+ * movement can be drawn smoothly
+ * Steps and frames run on the event dispatch thread, as Swing components
+ * must only be used there
+ * The thread sleeps while the loop is stopped, such as on the menu screens
+ * With -Descape.frameStats=true a summary is printed every few seconds
+ * @author agent
+ * @version October 18, 2026
+ */
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.locks.LockSupport;
+import javax.swing.SwingUtilities;
+
+public class GameLoop implements Runnable
+{
+	public static final long STEP_NANOS = 50000000L; // 50 ms
+	private static final long FRAME_NANOS = 1000000000L / 60;
+	// Steps that are skipped when falling far behind, such as after a pause
+	private static final long MAX_LAG = 5 * STEP_NANOS;
+	private static final long REPORT_INTERVAL = 5000000000L; // 5 seconds
+
+	private final Listener listener;
+	private final boolean logging = Boolean.getBoolean("escape.frameStats");
+	private Thread thread;
+	private boolean running;
+
+	// Frame statistics since the last report
+	private long frames, steps, frameNanos, maxFrameNanos, workNanos;
+	private long windowStart;
+
+	/**
+	 * Creates a stopped loop
+	 * @param listener what is stepped and drawn
+	 */
+	public GameLoop(Listener listener)
+	{
+		this.listener = listener;
+	}
+
+	/**
+	 * Starts or resumes stepping and drawing
+	 */
+	public synchronized void start()
+	{
+		running = true;
+		if (thread == null)
+		{
+			thread = new Thread(this, "Game loop");
+			thread.setDaemon(true);
+			thread.start();
+		}
+		notifyAll();
+	}
+
+	/**
+	 * Stops stepping and drawing until the loop is started again
+	 */
+	public synchronized void stop()
+	{
+		running = false;
+	}
+
+	public synchronized boolean isRunning()
+	{
+		return running;
+	}
+
+	@Override
+	public void run()
+	{
+		long previous = System.nanoTime();
+		long lag = 0;
+		while (true)
+		{
+			try
+			{
+				// Sleep until the loop is started again, without catching up
+				// on the time in between
+				synchronized (this)
+				{
+					if (!running)
+					{
+						while (!running)
+							wait();
+						previous = System.nanoTime();
+						lag = 0;
+						windowStart = previous;
+					}
+				}
+
+				long frameStart = System.nanoTime();
+				lag += Math.min(frameStart - previous, MAX_LAG);
+				frameNanos(frameStart - previous);
+				previous = frameStart;
+
+				int dueSteps = 0;
+				while (lag >= STEP_NANOS)
+				{
+					lag -= STEP_NANOS;
+					dueSteps++;
+				}
+				runFrame(dueSteps, lag / (double) STEP_NANOS);
+				workNanos += System.nanoTime() - frameStart;
+				report(frameStart);
+
+				// Wait for the next frame
+				long sleep = FRAME_NANOS - (System.nanoTime() - frameStart);
+				if (sleep > 0)
+					LockSupport.parkNanos(sleep);
+			}
+			catch (InterruptedException e)
+			{
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Runs the due steps and draws a frame on the event dispatch thread
+	 * @param dueSteps the number of steps
+	 * @param alpha how far the frame is between the last step and the next
+	 */
+	private void runFrame(final int dueSteps, final double alpha)
+			throws InterruptedException
+	{
+		try
+		{
+			SwingUtilities.invokeAndWait(new Runnable()
+			{
+				public void run()
+				{
+					for (int step = 0; step < dueSteps && isRunning(); step++)
+						listener.step();
+					if (isRunning())
+						listener.render(alpha);
+				}
+			});
+		}
+		catch (InvocationTargetException e)
+		{
+			e.getCause().printStackTrace();
+		}
+		steps += dueSteps;
+	}
+
+	private void frameNanos(long nanos)
+	{
+		if (frames > 0)
+		{
+			frameNanos += nanos;
+			maxFrameNanos = Math.max(maxFrameNanos, nanos);
+		}
+		frames++;
+	}
+
+	private void report(long now)
+	{
+		if (logging && now - windowStart >= REPORT_INTERVAL)
+		{
+			System.out.println(report());
+			frames = 0;
+			steps = 0;
+			frameNanos = 0;
+			maxFrameNanos = 0;
+			workNanos = 0;
+			windowStart = now;
+		}
+	}
+
+	/**
+	 * Gets a short summary of the frames since the last report
+	 * @return the summary
+	 */
+	public String report()
+	{
+		if (frames < 2)
+			return "Game loop: no frames";
+		double seconds = frameNanos / 1000000000.0;
+		return String.format(
+				"Game loop: %.1f fps, %.1f steps/s, frame %.2f ms avg %.2f ms "
+						+ "max, %.2f ms busy/frame", (frames - 1) / seconds,
+				steps / seconds, frameNanos / 1000000.0 / (frames - 1),
+				maxFrameNanos / 1000000.0, workNanos / 1000000.0 / frames);
+	}
+
+	/**
+	 * What the game loop steps and draws
+	 */
+	public interface Listener
+	{
+		/**
+		 * Advances the game by STEP_NANOS
+		 */
+		void step();
+
+		/**
+		 * Draws a frame
+		 * @param alpha how far the frame is between the last step (0) and
+		 *            the next one (1)
+		 */
+		void render(double alpha);
+	}
+}
@@ -0,0 +1,588 @@
+/**
+ * Keeps track of everything that happens while a level is played, such as
+ * the objects, the inventory, the character and the time, and applies all
+ * rules of the game
+ * Does not depend on any window so that levels can also be played without
+ * one, EscapeGrid only draws the session and passes input on to it
+ * @author agent
+ * @version October 18, 2026
+ */
+
+import java.awt.Container;
+import java.awt.Dimension;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.KeyEvent;
+import java.util.ArrayList;
+
+public class GameSession
+{
+	// Directions the character can move in (matching its angle / 90)
+	public static final int UP = 0;
+	public static final int RIGHT = 1;
+	public static final int DOWN = 2;
+	public static final int LEFT = 3;
+
+	public static final Dimension GAME_SIZE = new Dimension(1000, 500);
+
+	private final PreparedLevel level;
+	private final EObject[] backObjects, levelObjects;
+	private final ArrayList<EObject> inventoryObjects =
+			new ArrayList<EObject>(0);
+	private final ECharacter character;
+	private final ReachabilityMap reachabilityMap;
+
+	// Walking to a clicked point, one step per update
+	private final PathFinder pathFinder;
+	private boolean clickToWalk;
+	private int walkStep, walkLength;
+
+	// Find the object under the mouse for hovering and clicking
+	private final HitTestIndex sceneIndex;
+	private final HitTestIndex inventoryIndex = new HitTestIndex(
+			new Rectangle(0, 500, 500, 200));
+	private int inventoryAdditions;
+
+	// The selected inventory object and the object under the mouse
+	private EObject clickedObject;
+	private EObject currentObject;
+
+	// What the description screen shows
+	private boolean highlight, showDescription, charDescription,
+			outOfRange, somethingInteresting;
+
+	private final LevelClock clock;
+	private boolean finished;
+
+	// Told about sounds to play (may be null)
+	private SoundListener sounds;
+	private boolean blocked;
+
+	/**
+	 * Starts playing a level, timed by the system clock
+	 * @param level the prepared level, which may only be played once
+	 * @param container the container the character is drawn in (may be null)
+	 */
+	public GameSession(PreparedLevel level, Container container)
+	{
+		this(level, container, LevelClock.SYSTEM_TIME);
+	}
+
+	/**
+	 * Starts playing a level
+	 * @param level the prepared level, which may only be played once
+	 * @param container the container the character is drawn in (may be null)
+	 * @param time where the level's time comes from
+	 */
+	public GameSession(PreparedLevel level, Container container,
+			LevelClock.TimeSource time)
+	{
+		this.level = level;
+		clock = new LevelClock(time);
+		backObjects = level.getBackObjects();
+		levelObjects = level.getLevelObjects();
+		somethingInteresting = true;
+
+		// Initialize the character's starting point
+		Point start = level.getData().getStart();
+		character = new ECharacter(start.x, start.y, container);
+		character.setCollisionGrid(new CollisionGrid(levelObjects,
+				backObjects));
+		reachabilityMap = new ReachabilityMap(levelObjects, backObjects, start);
+		character.setReachabilityMap(reachabilityMap);
+		pathFinder = new PathFinder(reachabilityMap);
+		sceneIndex = HitTestIndex.forLevel(new Rectangle(GAME_SIZE),
+				levelObjects, backObjects);
+	}
+
+	/**
+	 * Moves the character one step if possible
+	 * @param direction UP, RIGHT, DOWN or LEFT
+	 */
+	public void move(int direction)
+	{
+		// Moving by hand stops walking to a clicked point
+		walkLength = 0;
+		step(direction);
+	}
+
+	/**
+	 * Moves the character one step if possible
+	 * @param direction UP, RIGHT, DOWN or LEFT
+	 */
+	private void step(int direction)
+	{
+		// Do not display any character message when moving
+		charDescription = false;
+
+		// Move into the specified direction
+		int x = character.x, y = character.y;
+		if (direction == LEFT)
+			character.moveLeft(levelObjects, backObjects);
+		else if (direction == RIGHT)
+			character.moveRight(levelObjects, backObjects);
+		else if (direction == DOWN)
+			character.moveDown(levelObjects, backObjects);
+		else if (direction == UP)
+			character.moveUp(levelObjects, backObjects);
+
+		// Only the first step into something makes a sound
+		boolean wasBlocked = blocked;
+		blocked = character.x == x && character.y == y;
+		if (blocked && !wasBlocked)
+			playSound(SoundListener.BLOCKED, character);
+	}
+
+	/**
+	 * Picks up every item the character is standing on
+	 * @return whether anything was picked up
+	 */
+	public boolean pickUp()
+	{
+		charDescription = false;
+		boolean pickedUp = false;
+		for (int object = 0; object < levelObjects.length; object++)
+			if (character.contains(levelObjects[object])
+					&& levelObjects[object].isItem())
+			{
+				addToInventory(levelObjects[object]);
+				levelObjects[object].changeVisibility();
+				currentObject = null;
+				pickedUp = true;
+			}
+		return pickedUp;
+	}
+
+	/**
+	 * Updates the description screen for the mouse being at the given point
+	 * @param selectedPoint the position of the mouse
+	 */
+	public void hover(Point selectedPoint)
+	{
+		somethingInteresting = true;
+		outOfRange = false;
+		charDescription = false;
+
+		// Find the topmost object under the mouse
+		EObject hoveredObject = objectAt(selectedPoint);
+		if (hoveredObject != null)
+		{
+			currentObject = hoveredObject;
+			// Objects in the game area show their hover description
+			if (selectedPoint.y <= 500)
+				currentObject.changeDescription(1);
+			showDescription = true;
+			return;
+		}
+
+		// Add character hover text "You"
+		if (character.contains(selectedPoint))
+		{
+			showDescription = false;
+			charDescription = true;
+			return;
+		}
+
+		// If hovering over nothing, nothing is displayed
+		currentObject = null;
+		showDescription = false;
+	}
+
+	/**
+	 * Interacts with whatever is at the given point
+	 * @param clickedPoint the clicked point
+	 */
+	public void click(Point clickedPoint)
+	{
+		// Resolve the clicked object the same way as hovering does
+		currentObject = objectAt(clickedPoint);
+
+		// Clicking on the floor walks there if it is turned on
+		if (clickToWalk && currentObject == null && clickedObject == null
+				&& clickedPoint.y <= GAME_SIZE.height
+				&& walkTo(clickedPoint))
+		{
+			showDescription = false;
+			somethingInteresting = true;
+			outOfRange = false;
+			return;
+		}
+
+		showDescription = false;
+		somethingInteresting = true;
+
+		// if the mouse is in the description screen
+		// this stops annoying out of range messages
+		if (clickedPoint.y > 500 && clickedPoint.x > 500)
+		{
+			outOfRange = false;
+			return;
+		}
+		// If the player clicks in the inventory
+		else if (clickedPoint.y > 500 && clickedPoint.x < 500)
+		{
+			// if an inventory object is selected
+			if (currentObject != null && currentObject.contains(clickedPoint))
+			{
+				// De-select the object if it was what it was before
+				if (clickedObject == currentObject)
+				{
+					clickedObject = null;
+					highlight = false;
+				}
+				// Select an inventory item
+				else
+				{
+					clickedObject = currentObject;
+					showDescription = true;
+					highlight = true;
+				}
+			}
+		}
+		// If what you clicked on it is in range of the character
+		else if (character.isInRange(clickedPoint))
+		{
+			outOfRange = false;
+
+			// If an object is clicked
+			if (currentObject != null)
+			{
+				showDescription = true;
+				// If the object is an item it will be added to the
+				// inventory
+				if (currentObject.isItem())
+				{
+					addToInventory(currentObject);
+					currentObject.changeVisibility();
+					currentObject = null;
+				}
+				// If the right inventory object that was clicked and
+				// used on level object, something will happen
+				else if (currentObject.toUseItemNo() >= 0
+						&& ((clickedObject != null
+						&& clickedObject == levelObjects[currentObject
+								.toUseItemNo()])))
+				{
+					String clickedObjectName = clickedObject.getName();
+					removeFromInventory(clickedObject);
+					clickedObject = null;
+					highlight = false;
+
+					// Reveal the hidden item if possible
+					boolean revealed = currentObject
+							.revealSecrets(levelObjects);
+					clock.split("Used " + clickedObjectName + " on "
+							+ currentObject.getName());
+
+					// If the last object is used, the level is finished
+					// We must write the last level object last in the text file
+					if (levelObjects[levelObjects.length - 1] == currentObject)
+					{
+						currentObject.changeImage(3);
+						finished = true;
+						clock.finish();
+						playSound(SoundListener.ESCAPED, currentObject);
+						showDescription = false;
+					}
+					// Escaping has a sound of its own
+					else if (revealed)
+						playSound(SoundListener.REVEAL, currentObject);
+				}
+				// If the wrong item is selected
+				else if (clickedObject != null)
+				{
+					somethingInteresting = false;
+					clickedObject = null;
+					highlight = false;
+				}
+				// If it can be changed just by clicking on it
+				else if (currentObject.toUseItemNo() == -1)
+				{
+					if (currentObject.revealSecrets(levelObjects))
+					{
+						clock.split("Opened " + currentObject.getName());
+						playSound(SoundListener.REVEAL, currentObject);
+					}
+				}
+				else
+					currentObject.changeImage();
+			}
+			// If an empty space is clicked nothing interesting occurs
+			else if (clickedObject != null)
+			{
+				clickedObject = null;
+				highlight = false;
+				somethingInteresting = false;
+			}
+		}
+		// If the click occurred outside the character's range,
+		// the description box will be cleared
+		else
+			outOfRange = true;
+	}
+
+	/**
+	 * Starts walking the character towards a point
+	 * @param point the point the character should be centred on
+	 * @return whether the character can get there
+	 */
+	public boolean walkTo(Point point)
+	{
+		// A point on an object leads to the nearest place next to it
+		int goal = reachabilityMap.closestFreePosition(point.x
+				- character.width / 2, point.y - character.height / 2);
+		int start = reachabilityMap.positionAt(character.x, character.y);
+		walkStep = 0;
+		walkLength = Math.max(0, pathFinder.findPath(start, goal));
+		return walkLength > 0;
+	}
+
+	/**
+	 * Moves the character while arrow keys are held, where two arrow keys at
+	 * once move diagonally, and otherwise keeps walking to a clicked point
+	 * @param input the keys held, which are forgotten if only pressed briefly
+	 */
+	public void update(InputState input)
+	{
+		int horizontal = (input.isDown(KeyEvent.VK_RIGHT) ? 1 : 0)
+				- (input.isDown(KeyEvent.VK_LEFT) ? 1 : 0);
+		int vertical = (input.isDown(KeyEvent.VK_DOWN) ? 1 : 0)
+				- (input.isDown(KeyEvent.VK_UP) ? 1 : 0);
+		input.endStep();
+		if (horizontal != 0)
+			move(horizontal < 0 ? LEFT : RIGHT);
+		if (vertical != 0)
+			move(vertical < 0 ? UP : DOWN);
+		if (horizontal == 0 && vertical == 0)
+			update();
+	}
+
+	/**
+	 * Takes the next step towards the point the character is walking to
+	 */
+	public void update()
+	{
+		if (walkStep >= walkLength)
+			return;
+
+		int next = pathFinder.getStep(walkStep++);
+		int dx = reachabilityMap.getX(next) - character.x;
+		int dy = reachabilityMap.getY(next) - character.y;
+		int x = character.x, y = character.y;
+		if (dx < 0)
+			step(LEFT);
+		else if (dx > 0)
+			step(RIGHT);
+		else if (dy < 0)
+			step(UP);
+		else
+			step(DOWN);
+
+		// Stop if something appeared in the way
+		if (character.x == x && character.y == y)
+			walkLength = 0;
+	}
+
+	/**
+	 * Checks whether the character is walking to a clicked point
+	 * @return whether there are steps left
+	 */
+	public boolean isWalking()
+	{
+		return walkStep < walkLength;
+	}
+
+	/**
+	 * Turns walking to clicked points on or off
+	 * @param clickToWalk whether clicking on the floor walks there
+	 */
+	public void setClickToWalk(boolean clickToWalk)
+	{
+		this.clickToWalk = clickToWalk;
+		if (!clickToWalk)
+			walkLength = 0;
+	}
+
+	/**
+	 * Sets what is told about sounds to play, such as picking up an item
+	 * @param sounds the listener, or null for no sounds
+	 */
+	public void setSoundListener(SoundListener sounds)
+	{
+		this.sounds = sounds;
+	}
+
+	private void playSound(int sound, Rectangle where)
+	{
+		if (sounds != null)
+			sounds.playSound(sound, where.x + where.width / 2);
+	}
+
+	/**
+	 * Stops counting the level's time, such as while a dialog is open
+	 */
+	public void pause()
+	{
+		clock.pause();
+	}
+
+	/**
+	 * Continues counting the level's time
+	 */
+	public void resume()
+	{
+		clock.resume();
+	}
+
+	/**
+	 * Adds a given object to the inventory array
+	 * @param currentObject the currentObject
+	 */
+	private void addToInventory(EObject currentObject)
+	{
+		// Heard where it was picked up, not in the inventory
+		playSound(SoundListener.PICK_UP, currentObject);
+		inventoryObjects.add(currentObject);
+		clock.split("Picked up " + currentObject.getName());
+		// Set the x position of the last inventory object added to number
+		inventoryObjects.get(inventoryObjects.size() - 1).x = (inventoryObjects
+				.size() - 1) * 50 + 50;
+		inventoryObjects.get(inventoryObjects.size() - 1).y = 550;
+
+		// The object can now only be found in the inventory, where earlier
+		// objects stay on top
+		sceneIndex.untrack(currentObject);
+		inventoryIndex.insert(currentObject, -inventoryAdditions);
+		inventoryAdditions++;
+	}
+
+	/**
+	 * Removes a given object from the inventory
+	 * @param object the object
+	 */
+	private void removeFromInventory(EObject object)
+	{
+		inventoryObjects.remove(object);
+		inventoryIndex.remove(object);
+	}
+
+	/**
+	 * Finds the topmost object at the given point of the game screen
+	 * @param point the point
+	 * @return the object or null if there is none
+	 */
+	private EObject objectAt(Point point)
+	{
+		// Objects in the game area
+		if (point.x >= 0 && point.x <= 1000 && point.y >= 0 && point.y <= 500)
+			return sceneIndex.topmostAt(point);
+		// Objects in the inventory
+		return inventoryIndex.topmostAt(point);
+	}
+
+	/**
+	 * Checks whether the level has been escaped
+	 * @return whether the last object has been used
+	 */
+	public boolean isFinished()
+	{
+		return finished;
+	}
+
+	public PreparedLevel getLevel()
+	{
+		return level;
+	}
+
+	public EObject[] getBackObjects()
+	{
+		return backObjects;
+	}
+
+	public EObject[] getLevelObjects()
+	{
+		return levelObjects;
+	}
+
+	public ArrayList<EObject> getInventoryObjects()
+	{
+		return inventoryObjects;
+	}
+
+	public ECharacter getCharacter()
+	{
+		return character;
+	}
+
+	public ReachabilityMap getReachabilityMap()
+	{
+		return reachabilityMap;
+	}
+
+	public EObject getClickedObject()
+	{
+		return clickedObject;
+	}
+
+	public EObject getCurrentObject()
+	{
+		return currentObject;
+	}
+
+	public boolean isHighlighted()
+	{
+		return highlight;
+	}
+
+	public boolean isShowingDescription()
+	{
+		return showDescription;
+	}
+
+	public boolean isShowingCharDescription()
+	{
+		return charDescription;
+	}
+
+	public boolean isOutOfRange()
+	{
+		return outOfRange;
+	}
+
+	public boolean isSomethingInteresting()
+	{
+		return somethingInteresting;
+	}
+
+	/**
+	 * Gets the time spent on this level
+	 * @return the time in tenths of a second
+	 */
+	public int getTime()
+	{
+		return clock.getTenths();
+	}
+
+	public LevelClock getClock()
+	{
+		return clock;
+	}
+
+	/**
+	 * Listens for things happening that make a sound
+	 */
+	public interface SoundListener
+	{
+		int PICK_UP = 0;
+		int REVEAL = 1;
+		int BLOCKED = 2;
+		int ESCAPED = 3;
+
+		/**
+		 * Called when a sound should be played, which must not wait
+		 * @param sound PICK_UP, REVEAL, BLOCKED or ESCAPED
+		 * @param x where on the game screen it happened
+		 */
+		void playSound(int sound, int x);
+	}
+}
@@ -0,0 +1,198 @@
+/**
+ * Finds the topmost object under a point without looking at every object
+ * Objects are kept in the cells of a uniform grid, sorted from top to bottom
+ * Tracked objects are added and removed as their visibility changes
+ * @author agent
+ * @version October 18, 2026
+ */
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+public class HitTestIndex implements EObject.VisibilityListener
+{
+	private static final int CELL_SIZE = 50;
+
+	private final Rectangle area;
+	private final int columns, rows;
+	private final ArrayList<ArrayList<Entry>> cells;
+
+	// Every object currently in the grid and every object whose visibility
+	// decides whether it is in the grid
+	private final IdentityHashMap<EObject, Entry> entries =
+			new IdentityHashMap<EObject, Entry>();
+	private final IdentityHashMap<EObject, Integer> tracked =
+			new IdentityHashMap<EObject, Integer>();
+
+	/**
+	 * Creates an empty index covering the given area of the screen
+	 * @param area the area
+	 */
+	public HitTestIndex(Rectangle area)
+	{
+		this.area = new Rectangle(area);
+		columns = (area.width + CELL_SIZE - 1) / CELL_SIZE + 1;
+		rows = (area.height + CELL_SIZE - 1) / CELL_SIZE + 1;
+		cells = new ArrayList<ArrayList<Entry>>(columns * rows);
+		for (int cell = 0; cell < columns * rows; cell++)
+			cells.add(new ArrayList<Entry>(2));
+	}
+
+	/**
+	 * Builds the index of a level's game area in the same order the objects
+	 * have always been checked in: background objects first, then level
+	 * objects from last to first
+	 * @param area the game area
+	 * @param levelObjects the array of all usable objects in the level
+	 * @param backObjects the array of all background objects in the level
+	 * @return the index
+	 */
+	public static HitTestIndex forLevel(Rectangle area,
+			EObject[] levelObjects, EObject[] backObjects)
+	{
+		HitTestIndex index = new HitTestIndex(area);
+		for (int object = 0; object < levelObjects.length; object++)
+			index.track(levelObjects[object], object);
+		for (int object = 0; object < backObjects.length; object++)
+			index.track(backObjects[object], levelObjects.length
+					+ backObjects.length - object);
+		return index;
+	}
+
+	/**
+	 * Keeps an object in the index whenever it is visible
+	 * @param object the object
+	 * @param z its height, the object with the highest z is found first
+	 */
+	public void track(EObject object, int z)
+	{
+		if (tracked.put(object, z) == null)
+			object.addVisibilityListener(this);
+		if (object.isVisible())
+			insert(object, z);
+	}
+
+	/**
+	 * Stops keeping an object in the index based on its visibility and
+	 * removes it
+	 * @param object the object
+	 */
+	public void untrack(EObject object)
+	{
+		tracked.remove(object);
+		remove(object);
+	}
+
+	@Override
+	public void visibilityChanged(EObject object)
+	{
+		Integer z = tracked.get(object);
+		if (z == null)
+			return;
+		if (object.isVisible())
+			insert(object, z);
+		else
+			remove(object);
+	}
+
+	/**
+	 * Adds an object at its current position
+	 * @param object the object
+	 * @param z its height, the object with the highest z is found first
+	 */
+	public void insert(EObject object, int z)
+	{
+		remove(object);
+		Entry entry = new Entry(object, z, object.getBounds());
+		entries.put(object, entry);
+		for (int row = row(entry.bounds.y); row <= row(entry.bounds.y
+				+ entry.bounds.height - 1); row++)
+		{
+			for (int column = column(entry.bounds.x); column <= column(entry.bounds.x
+					+ entry.bounds.width - 1); column++)
+			{
+				// Keep every cell sorted from the highest to the lowest z
+				ArrayList<Entry> cell = cells.get(row * columns + column);
+				int position = 0;
+				while (position < cell.size() && cell.get(position).z > z)
+					position++;
+				cell.add(position, entry);
+			}
+		}
+	}
+
+	/**
+	 * Removes an object from the index
+	 * @param object the object
+	 */
+	public void remove(EObject object)
+	{
+		Entry entry = entries.remove(object);
+		if (entry == null)
+			return;
+		for (int row = row(entry.bounds.y); row <= row(entry.bounds.y
+				+ entry.bounds.height - 1); row++)
+			for (int column = column(entry.bounds.x); column <= column(entry.bounds.x
+					+ entry.bounds.width - 1); column++)
+				cells.get(row * columns + column).remove(entry);
+	}
+
+	/**
+	 * Removes every object from the index
+	 */
+	public void clear()
+	{
+		entries.clear();
+		tracked.clear();
+		for (int cell = 0; cell < cells.size(); cell++)
+			cells.get(cell).clear();
+	}
+
+	/**
+	 * Finds the topmost object containing the given point
+	 * @param point the point
+	 * @return the object or null if there is none
+	 */
+	public EObject topmostAt(Point point)
+	{
+		ArrayList<Entry> cell = cells.get(row(point.y) * columns
+				+ column(point.x));
+		for (int entry = 0; entry < cell.size(); entry++)
+		{
+			if (cell.get(entry).object.contains(point))
+				return cell.get(entry).object;
+		}
+		return null;
+	}
+
+	private int column(int x)
+	{
+		return Math.max(0, Math.min(columns - 1, Math.floorDiv(x - area.x,
+				CELL_SIZE)));
+	}
+
+	private int row(int y)
+	{
+		return Math.max(0, Math.min(rows - 1, Math.floorDiv(y - area.y,
+				CELL_SIZE)));
+	}
+
+	/**
+	 * An object together with its height and the area it was added with
+	 */
+	private static class Entry
+	{
+		final EObject object;
+		final int z;
+		final Rectangle bounds;
+
+		Entry(EObject object, int z, Rectangle bounds)
+		{
+			this.object = object;
+			this.z = z;
+			this.bounds = bounds;
+		}
+	}
+}
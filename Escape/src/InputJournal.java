@@ -0,0 +1,468 @@
+/**
+ * Records everything the player does during a level, so that the level can
+ * be played again exactly the same way, with or without a window
+ * Every key, mouse press and mouse movement on the game screen is kept, as
+ * well as every step of the game and every pause, each with its time
+ * Entries take a byte for their type, the time since the entry before in
+ * as few bytes as needed and then their key or point
+ * The journal is also where the level's clock gets its time from: the time
+ * of the entry being handled, so that a replay sees exactly the same times
+ * Run on its own, a saved journal is played again without a window and the
+ * result and how long the steps took are printed
+ * @author agent
+ * @version October 18, 2026
+ */
+
+import java.awt.Point;
+import java.awt.event.KeyEvent;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+public class InputJournal implements LevelClock.TimeSource
+{
+	// Entry types
+	public static final int START = 0;
+	public static final int STEP = 1;
+	public static final int KEY_PRESS = 2;
+	public static final int KEY_RELEASE = 3;
+	public static final int MOUSE_PRESS = 4;
+	public static final int MOUSE_MOVE = 5;
+	public static final int PAUSE = 6;
+	public static final int RESUME = 7;
+	public static final int CLICK_TO_WALK = 8;
+
+	// "ESCJ"
+	private static final int MAGIC = 0x45534349;
+	private static final int VERSION = 1;
+
+	private final int level;
+	// Where the time comes from while recording, null while replaying
+	private final LevelClock.TimeSource source;
+	private final long start;
+
+	private byte[] bytes;
+	private int size;
+	private long now;
+
+	// The entry read last while replaying
+	private int position, type, x, y;
+	private int headerSize;
+
+	/**
+	 * Starts recording a level, timed by the system clock
+	 * @param level the level number
+	 * @param clickToWalk whether clicking on the floor walks there
+	 */
+	public InputJournal(int level, boolean clickToWalk)
+	{
+		this(level, clickToWalk, LevelClock.SYSTEM_TIME);
+	}
+
+	/**
+	 * Starts recording a level
+	 * @param level the level number
+	 * @param clickToWalk whether clicking on the floor walks there
+	 * @param source where the time comes from
+	 */
+	public InputJournal(int level, boolean clickToWalk,
+			LevelClock.TimeSource source)
+	{
+		this.level = level;
+		this.source = source;
+		start = source.nanoTime();
+		bytes = new byte[1024];
+		writeInt(MAGIC);
+		writeNumber(VERSION);
+		writeNumber(level);
+		headerSize = size;
+		record(START, clickToWalk ? 1 : 0);
+	}
+
+	/**
+	 * Reads a recorded journal to replay it
+	 */
+	private InputJournal(byte[] bytes) throws IOException
+	{
+		this.bytes = bytes;
+		size = bytes.length;
+		source = null;
+		start = 0;
+		if (size < 4 || readInt() != MAGIC || readNumber() != VERSION)
+			throw new IOException("Not an input journal");
+		level = (int) readNumber();
+		headerSize = position;
+	}
+
+	/**
+	 * Reads a saved journal
+	 * @param file the file
+	 * @return the journal, ready to be replayed
+	 * @throws IOException if the file can not be read or is no journal
+	 */
+	public static InputJournal load(File file) throws IOException
+	{
+		return new InputJournal(Files.readAllBytes(file.toPath()));
+	}
+
+	/**
+	 * Reads a journal from its bytes
+	 * @param bytes the bytes, as from toByteArray
+	 * @return the journal, ready to be replayed
+	 * @throws IOException if the bytes are no journal
+	 */
+	public static InputJournal read(byte[] bytes) throws IOException
+	{
+		return new InputJournal(bytes);
+	}
+
+	/**
+	 * Records an entry without a key or point, such as STEP
+	 * @param type the entry type
+	 */
+	public void record(int type)
+	{
+		record(type, 0, 0);
+	}
+
+	/**
+	 * Records an entry with a key or a setting
+	 * @param type the entry type
+	 * @param value the key code or setting
+	 */
+	public void record(int type, int value)
+	{
+		record(type, value, 0);
+	}
+
+	/**
+	 * Records an entry, nothing is recorded while replaying
+	 * @param type the entry type
+	 * @param x the key code, setting or x position
+	 * @param y the y position
+	 */
+	public void record(int type, int x, int y)
+	{
+		if (source == null)
+			return;
+		long time = source.nanoTime() - start;
+		ensureSpace(1 + 10 + 5 + 5);
+		bytes[size++] = (byte) type;
+		writeNumber(time - now);
+		now = time;
+		if (type == KEY_PRESS || type == KEY_RELEASE || type == START
+				|| type == CLICK_TO_WALK)
+			writeNumber(x);
+		else if (type == MOUSE_PRESS || type == MOUSE_MOVE)
+		{
+			// Points outside the window can be negative
+			writeNumber((x << 1 ^ x >> 31) & 0xffffffffL);
+			writeNumber((y << 1 ^ y >> 31) & 0xffffffffL);
+		}
+	}
+
+	/**
+	 * Gets the time of the entry recorded or replayed last, which is the
+	 * time the level's clock sees
+	 * @return the time since the start of the level in nanoseconds
+	 */
+	public long nanoTime()
+	{
+		return now;
+	}
+
+	public int getLevel()
+	{
+		return level;
+	}
+
+	public boolean isRecording()
+	{
+		return source != null;
+	}
+
+	/**
+	 * Goes back to the start of the journal to replay it
+	 */
+	public void rewind()
+	{
+		position = headerSize;
+		now = 0;
+	}
+
+	/**
+	 * Reads the next entry to replay
+	 * @return whether there was another entry
+	 */
+	public boolean next()
+	{
+		if (position >= size)
+			return false;
+		type = bytes[position++];
+		now += readNumber();
+		x = 0;
+		y = 0;
+		if (type == KEY_PRESS || type == KEY_RELEASE || type == START
+				|| type == CLICK_TO_WALK)
+			x = (int) readNumber();
+		else if (type == MOUSE_PRESS || type == MOUSE_MOVE)
+		{
+			int zigzag = (int) readNumber();
+			x = zigzag >>> 1 ^ -(zigzag & 1);
+			zigzag = (int) readNumber();
+			y = zigzag >>> 1 ^ -(zigzag & 1);
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the time of the next entry without reading it
+	 * @return the time since the start in nanoseconds, or -1 at the end
+	 */
+	public long getNextTime()
+	{
+		if (position >= size)
+			return -1;
+		int entry = position;
+		position++;
+		long time = now + readNumber();
+		position = entry;
+		return time;
+	}
+
+	/**
+	 * Gets the type of the entry read last
+	 * @return the entry type
+	 */
+	public int getType()
+	{
+		return type;
+	}
+
+	/**
+	 * Gets the key code or setting of the entry read last
+	 * @return the key code, or 1 if a setting was turned on
+	 */
+	public int getValue()
+	{
+		return x;
+	}
+
+	public int getX()
+	{
+		return x;
+	}
+
+	public int getY()
+	{
+		return y;
+	}
+
+	/**
+	 * Gets the recorded entries
+	 * @return the bytes, which can be read again with read
+	 */
+	public byte[] toByteArray()
+	{
+		return Arrays.copyOf(bytes, size);
+	}
+
+	/**
+	 * Gets how many bytes the journal takes
+	 * @return the number of bytes
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Saves the journal
+	 * @param file the file, whose folder is created if necessary
+	 * @throws IOException if the file could not be written
+	 */
+	public void save(File file) throws IOException
+	{
+		File folder = file.getAbsoluteFile().getParentFile();
+		if (folder != null)
+			folder.mkdirs();
+		FileOutputStream out = new FileOutputStream(file);
+		try
+		{
+			out.write(bytes, 0, size);
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+
+	/**
+	 * Plays the journal again without a window, handling every entry the
+	 * way EscapeGrid does, until the journal ends or the level is finished
+	 * @param prepared the journal's level, which has not been played yet
+	 * @param speed how many times faster than recorded to replay, or 0 for
+	 *            as fast as possible
+	 * @return the session after the last entry
+	 */
+	public GameSession replay(PreparedLevel prepared, double speed)
+	{
+		rewind();
+		next();
+		GameSession session = new GameSession(prepared, null, this);
+		session.setClickToWalk(getValue() != 0);
+		InputState input = new InputState();
+		long wallStart = System.nanoTime();
+
+		while (!session.isFinished() && next())
+		{
+			if (speed > 0)
+			{
+				long wait = (long) (now / speed) - (System.nanoTime() - wallStart);
+				if (wait > 0)
+					sleep(wait);
+			}
+			replay(session, input);
+		}
+		return session;
+	}
+
+	/**
+	 * Handles the entry read last
+	 */
+	private void replay(GameSession session, InputState input)
+	{
+		switch (type)
+		{
+		case STEP:
+			session.update(input);
+			break;
+		case KEY_PRESS:
+			input.press(x);
+			if (x == KeyEvent.VK_SPACE)
+				session.pickUp();
+			break;
+		case KEY_RELEASE:
+			input.release(x);
+			break;
+		case MOUSE_PRESS:
+			session.click(new Point(x, y));
+			break;
+		case MOUSE_MOVE:
+			session.hover(new Point(x, y));
+			break;
+		case PAUSE:
+			session.pause();
+			input.clear();
+			break;
+		case RESUME:
+			session.resume();
+			break;
+		case CLICK_TO_WALK:
+			session.setClickToWalk(x != 0);
+			break;
+		}
+	}
+
+	private static void sleep(long nanos)
+	{
+		try
+		{
+			Thread.sleep(nanos / 1000000, (int) (nanos % 1000000));
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void ensureSpace(int needed)
+	{
+		if (size + needed > bytes.length)
+			bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size
+					+ needed));
+	}
+
+	private void writeInt(int value)
+	{
+		ensureSpace(4);
+		for (int shift = 24; shift >= 0; shift -= 8)
+			bytes[size++] = (byte) (value >>> shift);
+	}
+
+	private int readInt()
+	{
+		int value = 0;
+		for (int read = 0; read < 4; read++)
+			value = value << 8 | bytes[position++] & 0xff;
+		return value;
+	}
+
+	/**
+	 * Writes a number that is not negative, 7 bits per byte
+	 */
+	private void writeNumber(long value)
+	{
+		ensureSpace(10);
+		while (value >= 0x80)
+		{
+			bytes[size++] = (byte) (value | 0x80);
+			value >>>= 7;
+		}
+		bytes[size++] = (byte) value;
+	}
+
+	private long readNumber()
+	{
+		long value = 0;
+		for (int shift = 0;; shift += 7)
+		{
+			byte next = bytes[position++];
+			value |= (long) (next & 0x7f) << shift;
+			if (next >= 0)
+				return value;
+		}
+	}
+
+	/**
+	 * Replays saved journals without a window
+	 * @param args the journal file and optionally the speed, 0 for as fast
+	 *            as possible
+	 * @throws IOException if a file can not be read
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length == 0)
+		{
+			System.out.println("Usage: java InputJournal journal [speed]");
+			return;
+		}
+		InputJournal journal = load(new File(args[0]));
+		double speed = args.length > 1 ? Double.parseDouble(args[1]) : 0;
+
+		// Time every entry to find slow steps
+		PreparedLevel prepared = new PreparedLevel(journal.getLevel());
+		long replayStart = System.nanoTime();
+		GameSession session = journal.replay(prepared, speed);
+		long replayNanos = System.nanoTime() - replayStart;
+
+		journal.rewind();
+		int entries = 0, steps = 0;
+		while (journal.next())
+		{
+			entries++;
+			if (journal.getType() == STEP)
+				steps++;
+		}
+		System.out.printf("Level %d: %s after %.2f s, %d entries (%d steps) "
+				+ "in %d bytes%n", journal.getLevel(),
+				session.isFinished() ? "escaped" : "not escaped", session
+						.getClock().getSeconds(), entries, steps, journal.size);
+		System.out.printf("Replayed in %.1f ms, %.1f us per entry%n",
+				replayNanos / 1000000.0, replayNanos / 1000.0 / entries);
+		System.out.print(session.getClock().splitReport());
+		System.out.println();
+	}
+}
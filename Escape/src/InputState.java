@@ -0,0 +1,79 @@
+/**
+ * Remembers which keys are held down, one bit per key code, so that the game
+ * can look at the keys once per step however many key events arrive
+ * Keys that were pressed and released again between two steps still count
+ * as pressed for the next step
+ * Only used on the event dispatch thread
+ * @author agent
+ * @version October 18, 2026
+ */
+
+import java.util.Arrays;
+
+public class InputState
+{
+	// Enough for every virtual key code of java.awt.event.KeyEvent
+	private static final int KEYS = 1 << 16;
+
+	private final long[] held = new long[KEYS / 64];
+	// Keys pressed since the last step
+	private final long[] pressed = new long[KEYS / 64];
+	private boolean anyPressed;
+
+	/**
+	 * Records that a key went down
+	 * @param keyCode the key code
+	 */
+	public void press(int keyCode)
+	{
+		if (keyCode < 0 || keyCode >= KEYS)
+			return;
+		held[keyCode >>> 6] |= 1L << keyCode;
+		pressed[keyCode >>> 6] |= 1L << keyCode;
+		anyPressed = true;
+	}
+
+	/**
+	 * Records that a key went up
+	 * @param keyCode the key code
+	 */
+	public void release(int keyCode)
+	{
+		if (keyCode < 0 || keyCode >= KEYS)
+			return;
+		held[keyCode >>> 6] &= ~(1L << keyCode);
+	}
+
+	/**
+	 * Checks whether a key is down or was pressed since the last step
+	 * @param keyCode the key code
+	 * @return whether the key counts as pressed for this step
+	 */
+	public boolean isDown(int keyCode)
+	{
+		if (keyCode < 0 || keyCode >= KEYS)
+			return false;
+		return ((held[keyCode >>> 6] | pressed[keyCode >>> 6]) & 1L << keyCode) != 0;
+	}
+
+	/**
+	 * Forgets the keys that were only pressed briefly, call after each step
+	 */
+	public void endStep()
+	{
+		if (anyPressed)
+			Arrays.fill(pressed, 0);
+		anyPressed = false;
+	}
+
+	/**
+	 * Forgets all keys, such as when the game can no longer see them being
+	 * released
+	 */
+	public void clear()
+	{
+		Arrays.fill(held, 0);
+		Arrays.fill(pressed, 0);
+		anyPressed = false;
+	}
+}
@@ -0,0 +1,66 @@
+/**
+ * One page of the instruction screen, prepared once as a list of texts and
+ * images to draw so that showing a page does not load anything
+ * @author agent
+ * @version October 18, 2026
+ */
+
+import java.awt.Graphics;
+import java.awt.Image;
+import java.awt.image.ImageObserver;
+import java.util.ArrayList;
+
+public class InstructionPage
+{
+	private ArrayList<String> texts = new ArrayList<String>();
+	private ArrayList<Image> images = new ArrayList<Image>();
+	// Positions of the texts and images, two numbers each
+	private ArrayList<Integer> textPositions = new ArrayList<Integer>();
+	private ArrayList<Integer> imagePositions = new ArrayList<Integer>();
+
+	/**
+	 * Adds a line of text to the page
+	 * @param text the text
+	 * @param x the x position
+	 * @param y the y position of the baseline
+	 * @return this page
+	 */
+	public InstructionPage addText(String text, int x, int y)
+	{
+		texts.add(text);
+		textPositions.add(x);
+		textPositions.add(y);
+		return this;
+	}
+
+	/**
+	 * Adds a shared image to the page
+	 * @param path the path of the image file
+	 * @param x the x position
+	 * @param y the y position
+	 * @return this page
+	 */
+	public InstructionPage addImage(String path, int x, int y)
+	{
+		images.add(SpriteCache.getImage(path));
+		imagePositions.add(x);
+		imagePositions.add(y);
+		return this;
+	}
+
+	/**
+	 * Draws the page using the graphics context's current font and colour
+	 * for the texts
+	 * @param g the graphical component
+	 * @param observer the image observer
+	 */
+	public void draw(Graphics g, ImageObserver observer)
+	{
+		for (int text = 0; text < texts.size(); text++)
+			g.drawString(texts.get(text), textPositions.get(text * 2),
+					textPositions.get(text * 2 + 1));
+		for (int image = 0; image < images.size(); image++)
+			g.drawImage(images.get(image), imagePositions.get(image * 2),
+					imagePositions.get(image * 2 + 1), observer);
+	}
+}
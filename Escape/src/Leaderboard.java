@@ -0,0 +1,573 @@
+/**
+ * Remembers every finished run of every level, not just the record
+ * Each run is added to the end of runs.dat, which has a fixed number of
+ * bytes per run, and the ten best runs and a count of the runs per hundredth
+ * of a second are kept for every level
+ * The counts are kept in Fenwick trees, so that the place of a time can be
+ * found in logarithmic time however many runs there are
+ * The best runs and counts are also saved in runs.idx, so that starting the
+ * game only needs to read the runs added since it was saved
+ * All writing happens on a background thread
+ * @author agent
+ * @version October 18, 2026
+ */
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+public class Leaderboard
+{
+	// The number of best runs kept for each level
+	public static final int TOP = 10;
+
+	// Times are counted in hundredths of a second up to ten minutes, slower
+	// runs all count as ten minutes
+	private static final int BUCKETS = 60000;
+	private static final int NAME_LENGTH = 8;
+	// level, name length, unused, time, date and name
+	private static final int RUN_BYTES = 1 + 1 + 2 + 4 + 8 + NAME_LENGTH * 2;
+	// Runs added before runs.idx is saved again
+	private static final int INDEX_AFTER = 64;
+	private static final int INDEX_VERSION = 1;
+
+	private final int levels;
+	private final File runsFile, indexFile;
+
+	// The best runs of each level, fastest first
+	private final ArrayList<ArrayList<Run>> top;
+	// The number of runs of each level per hundredth, as Fenwick trees
+	private final int[][] trees;
+	private final int[] levelRuns;
+	private int runs;
+
+	private final ExecutorService writer = Executors
+			.newSingleThreadExecutor(new ThreadFactory()
+			{
+				public Thread newThread(Runnable task)
+				{
+					Thread thread = new Thread(task, "Leaderboard writer");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+
+	/**
+	 * Reads the leaderboard, from runs.idx and the runs added after it was
+	 * saved, or from all of runs.dat if runs.idx can not be used
+	 * @param directory where the leaderboard files are kept, or null for an
+	 *            empty leaderboard that is never saved
+	 * @param levels the number of levels
+	 */
+	public Leaderboard(File directory, int levels)
+	{
+		this.levels = levels;
+		top = new ArrayList<ArrayList<Run>>(levels + 1);
+		for (int level = 0; level <= levels; level++)
+			top.add(new ArrayList<Run>(TOP + 1));
+		trees = new int[levels + 1][BUCKETS + 1];
+		levelRuns = new int[levels + 1];
+		if (directory == null)
+		{
+			runsFile = null;
+			indexFile = null;
+			return;
+		}
+		runsFile = new File(directory, "runs.dat");
+		indexFile = new File(directory, "runs.idx");
+
+		int read = readRuns(readIndex());
+		if (read < 0)
+		{
+			// runs.dat has fewer runs than runs.idx, so start again
+			System.out.println("The leaderboard index is out of date, "
+					+ "rebuilding it.");
+			clear();
+			read = readRuns(0);
+		}
+		if (read > 0)
+		{
+			final byte[] index = buildIndex();
+			writer.execute(new Runnable()
+			{
+				public void run()
+				{
+					writeIndex(index);
+				}
+			});
+		}
+
+		// Finish writing when the game is closed
+		Runtime.getRuntime().addShutdownHook(new Thread("Leaderboard flush")
+		{
+			public void run()
+			{
+				close();
+			}
+		});
+	}
+
+	/**
+	 * Adds a finished run, which is saved in the background
+	 * @param level the level
+	 * @param time the time in seconds
+	 * @param name the name of the player
+	 * @param date when the run was finished in milliseconds since 1970, or 0
+	 *            if not known
+	 */
+	public void add(int level, double time, String name, long date)
+	{
+		if (name.length() > NAME_LENGTH)
+			name = name.substring(0, NAME_LENGTH);
+		final Run run = new Run(level, (int) Math.round(time * 100), date,
+				name);
+		final int position;
+		byte[] index = null;
+		synchronized (this)
+		{
+			position = runs;
+			count(run);
+			if (runs % INDEX_AFTER == 0)
+				index = buildIndex();
+		}
+		if (runsFile == null)
+			return;
+
+		writer.execute(new Runnable()
+		{
+			public void run()
+			{
+				append(run, position);
+			}
+		});
+		// Saved after the run it includes
+		if (index != null)
+		{
+			final byte[] finalIndex = index;
+			writer.execute(new Runnable()
+			{
+				public void run()
+				{
+					writeIndex(finalIndex);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Finds the place a time would get on a level
+	 * @param level the level
+	 * @param time the time in seconds
+	 * @return the place, 1 if no run was faster
+	 */
+	public synchronized int getPlace(int level, double time)
+	{
+		int bucket = bucket((int) Math.round(time * 100));
+		int faster = 0;
+		for (int index = bucket; index > 0; index -= index & -index)
+			faster += trees[level][index];
+		return faster + 1;
+	}
+
+	/**
+	 * Gets the number of runs of a level
+	 * @param level the level
+	 * @return the number of runs
+	 */
+	public synchronized int getRunCount(int level)
+	{
+		return levelRuns[level];
+	}
+
+	/**
+	 * Gets the best runs of a level
+	 * @param level the level
+	 * @return up to TOP runs, fastest first
+	 */
+	public synchronized Run[] getTop(int level)
+	{
+		ArrayList<Run> best = top.get(level);
+		return best.toArray(new Run[best.size()]);
+	}
+
+	/**
+	 * Saves the leaderboard and waits until everything has been written,
+	 * after which no more runs are saved
+	 */
+	public void close()
+	{
+		if (writer.isShutdown() || indexFile == null)
+			return;
+		final byte[] index;
+		synchronized (this)
+		{
+			index = buildIndex();
+		}
+		writer.execute(new Runnable()
+		{
+			public void run()
+			{
+				writeIndex(index);
+			}
+		});
+		writer.shutdown();
+		try
+		{
+			writer.awaitTermination(5, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Counts a run towards the best runs and the place of later runs
+	 */
+	private void count(Run run)
+	{
+		runs++;
+		if (run.level < 1 || run.level > levels)
+			return;
+		levelRuns[run.level]++;
+		int[] tree = trees[run.level];
+		for (int index = bucket(run.hundredths) + 1; index < tree.length; index += index
+				& -index)
+			tree[index]++;
+		addToTop(top.get(run.level), run);
+	}
+
+	/**
+	 * Puts a run among the best runs of its level if it is fast enough,
+	 * after earlier runs with the same time
+	 */
+	private static void addToTop(ArrayList<Run> best, Run run)
+	{
+		int low = 0;
+		int high = best.size();
+		while (low < high)
+		{
+			int middle = (low + high) >>> 1;
+			if (best.get(middle).hundredths <= run.hundredths)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		if (low >= TOP)
+			return;
+		best.add(low, run);
+		if (best.size() > TOP)
+			best.remove(TOP);
+	}
+
+	private static int bucket(int hundredths)
+	{
+		return Math.max(0, Math.min(BUCKETS - 1, hundredths));
+	}
+
+	private void clear()
+	{
+		for (int level = 0; level <= levels; level++)
+		{
+			top.get(level).clear();
+			Arrays.fill(trees[level], 0);
+			levelRuns[level] = 0;
+		}
+		runs = 0;
+	}
+
+	/**
+	 * Writes a run at its place in runs.dat and makes sure it is on disk
+	 * A run that was only partly written before a crash is overwritten
+	 */
+	private void append(Run run, int position)
+	{
+		ByteBuffer bytes = ByteBuffer.allocate(RUN_BYTES);
+		bytes.put((byte) run.level);
+		bytes.put((byte) run.name.length());
+		bytes.putShort((short) 0);
+		bytes.putInt(run.hundredths);
+		bytes.putLong(run.date);
+		for (int letter = 0; letter < NAME_LENGTH; letter++)
+			bytes.putChar(letter < run.name.length() ? run.name.charAt(letter)
+					: ' ');
+		try
+		{
+			RandomAccessFile file = new RandomAccessFile(runsFile, "rw");
+			try
+			{
+				file.seek((long) position * RUN_BYTES);
+				file.write(bytes.array());
+				file.getChannel().force(false);
+			}
+			finally
+			{
+				file.close();
+			}
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+			System.out.println("Could not save the run.");
+		}
+	}
+
+	/**
+	 * Counts the runs of runs.dat from a given run on
+	 * @param first the first run to read
+	 * @return the number of runs read, or -1 if there are fewer than first
+	 */
+	private int readRuns(int first)
+	{
+		// A run that was only partly written is left out
+		long total = runsFile.length() / RUN_BYTES;
+		if (total < first)
+			return -1;
+		if (total == first)
+			return 0;
+
+		try
+		{
+			FileInputStream file = new FileInputStream(runsFile);
+			try
+			{
+				file.getChannel().position((long) first * RUN_BYTES);
+				DataInputStream in = new DataInputStream(
+						new BufferedInputStream(file, 1 << 16));
+				char[] name = new char[NAME_LENGTH];
+				for (long run = first; run < total; run++)
+				{
+					int level = in.readByte();
+					int nameLength = Math.min(in.readByte(), NAME_LENGTH);
+					in.readShort();
+					int hundredths = in.readInt();
+					long date = in.readLong();
+					for (int letter = 0; letter < NAME_LENGTH; letter++)
+						name[letter] = in.readChar();
+					count(new Run(level, hundredths, date, new String(name, 0,
+							Math.max(0, nameLength))));
+				}
+			}
+			finally
+			{
+				file.close();
+			}
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+			System.out.println("Could not read all runs.");
+		}
+		return (int) (total - first);
+	}
+
+	/**
+	 * Puts the best runs and the counts of every level into the format of
+	 * runs.idx, which ends with a checksum
+	 * @return the contents of runs.idx
+	 */
+	private byte[] buildIndex()
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		try
+		{
+			out.writeInt(INDEX_VERSION);
+			out.writeInt(levels);
+			out.writeInt(runs);
+			int[] counts = new int[BUCKETS + 1];
+			for (int level = 1; level <= levels; level++)
+			{
+				ArrayList<Run> best = top.get(level);
+				out.writeInt(best.size());
+				for (Run run : best)
+				{
+					out.writeInt(run.hundredths);
+					out.writeLong(run.date);
+					out.writeUTF(run.name);
+				}
+
+				// Turn the tree back into a count per hundredth, undoing
+				// the steps of building it in reverse
+				System.arraycopy(trees[level], 0, counts, 0, counts.length);
+				for (int index = BUCKETS; index > 0; index--)
+				{
+					int parent = index + (index & -index);
+					if (parent <= BUCKETS)
+						counts[parent] -= counts[index];
+				}
+				int used = 0;
+				for (int index = 1; index <= BUCKETS; index++)
+					if (counts[index] != 0)
+						used++;
+				out.writeInt(used);
+				for (int index = 1; index <= BUCKETS; index++)
+					if (counts[index] != 0)
+					{
+						out.writeShort(index - 1);
+						out.writeInt(counts[index]);
+					}
+			}
+			out.writeLong(checksum(bytes.toByteArray(), bytes.size()));
+		}
+		catch (IOException e)
+		{
+			// Can not happen when writing to memory
+			throw new IllegalStateException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	private void writeIndex(byte[] index)
+	{
+		try
+		{
+			RecordStore.replace(indexFile, index);
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+			System.out.println("Could not save the leaderboard index.");
+		}
+	}
+
+	/**
+	 * Reads runs.idx if it is complete and undamaged
+	 * @return the number of runs it includes, 0 if it could not be used
+	 */
+	private int readIndex()
+	{
+		byte[] contents;
+		try
+		{
+			contents = Files.readAllBytes(indexFile.toPath());
+		}
+		catch (IOException e)
+		{
+			return 0;
+		}
+		int length = contents.length - 8;
+		if (length < 0
+				|| ByteBuffer.wrap(contents, length, 8).getLong() != checksum(
+						contents, length))
+		{
+			System.out.println("The leaderboard index has been corrupted, "
+					+ "rebuilding it.");
+			return 0;
+		}
+
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+				contents));
+		try
+		{
+			if (in.readInt() != INDEX_VERSION || in.readInt() != levels)
+				return 0;
+			int indexed = in.readInt();
+			for (int level = 1; level <= levels; level++)
+			{
+				ArrayList<Run> best = top.get(level);
+				int bestCount = in.readInt();
+				for (int place = 0; place < bestCount; place++)
+					best.add(new Run(level, in.readInt(), in.readLong(), in
+							.readUTF()));
+
+				// Build the tree from the counts in linear time
+				int[] tree = trees[level];
+				int used = in.readInt();
+				for (int bucket = 0; bucket < used; bucket++)
+				{
+					int index = in.readUnsignedShort() + 1;
+					int count = in.readInt();
+					tree[index] += count;
+					levelRuns[level] += count;
+				}
+				for (int index = 1; index <= BUCKETS; index++)
+				{
+					int parent = index + (index & -index);
+					if (parent <= BUCKETS)
+						tree[parent] += tree[index];
+				}
+			}
+			runs = indexed;
+			return indexed;
+		}
+		catch (IOException e)
+		{
+			// An index that does not match its own format
+			if (!(e instanceof EOFException))
+				e.printStackTrace();
+			clear();
+			return 0;
+		}
+	}
+
+	private static long checksum(byte[] bytes, int length)
+	{
+		CRC32 crc = new CRC32();
+		crc.update(bytes, 0, length);
+		return crc.getValue();
+	}
+
+	/**
+	 * A finished run of a level
+	 */
+	public static class Run
+	{
+		private final int level;
+		private final int hundredths;
+		private final long date;
+		private final String name;
+
+		private Run(int level, int hundredths, long date, String name)
+		{
+			this.level = level;
+			this.hundredths = hundredths;
+			this.date = date;
+			this.name = name;
+		}
+
+		public int getLevel()
+		{
+			return level;
+		}
+
+		/**
+		 * Gets how long the run took
+		 * @return the time in seconds
+		 */
+		public double getTime()
+		{
+			return hundredths / 100.0;
+		}
+
+		/**
+		 * Gets when the run was finished
+		 * @return milliseconds since 1970, or 0 if not known
+		 */
+		public long getDate()
+		{
+			return date;
+		}
+
+		public String getName()
+		{
+			return name;
+		}
+	}
+}
@@ -0,0 +1,203 @@
+/**
+ * Measures how long a level takes from a monotonic clock instead of counting
+ * timer events, so that a busy event thread does not slow down the time
+ * Pauses, such as while a dialog is open, are not counted
+ * Also remembers split times for interactions such as picking up items
+ * @author agent
+ * @version October 18, 2026
+ */
+
+import java.util.ArrayList;
+
+public class LevelClock
+{
+	public static final long NANOS_PER_TENTH = 100000000L;
+
+	// The real clock, used unless another one is given
+	public static final TimeSource SYSTEM_TIME = new TimeSource()
+	{
+		public long nanoTime()
+		{
+			return System.nanoTime();
+		}
+	};
+
+	private final TimeSource source;
+	private final long startTime;
+	private long pausedNanos;
+	private long pauseStart = -1;
+	private long finishNanos = -1;
+
+	private final ArrayList<String> splitNames = new ArrayList<String>();
+	private final ArrayList<Long> splitTimes = new ArrayList<Long>();
+
+	/**
+	 * Starts a clock running on the system time
+	 */
+	public LevelClock()
+	{
+		this(SYSTEM_TIME);
+	}
+
+	/**
+	 * Starts a clock
+	 * @param source where the time comes from
+	 */
+	public LevelClock(TimeSource source)
+	{
+		this.source = source;
+		startTime = source.nanoTime();
+	}
+
+	/**
+	 * Stops counting time until resume is called
+	 */
+	public void pause()
+	{
+		if (pauseStart < 0 && finishNanos < 0)
+			pauseStart = source.nanoTime();
+	}
+
+	/**
+	 * Continues counting time after a pause
+	 */
+	public void resume()
+	{
+		if (pauseStart >= 0)
+		{
+			pausedNanos += source.nanoTime() - pauseStart;
+			pauseStart = -1;
+		}
+	}
+
+	/**
+	 * Remembers the current time for something that happened
+	 * @param name what happened
+	 */
+	public void split(String name)
+	{
+		if (finishNanos >= 0)
+			return;
+		splitNames.add(name);
+		splitTimes.add(getElapsedNanos());
+	}
+
+	/**
+	 * Stops the clock for good
+	 */
+	public void finish()
+	{
+		if (finishNanos >= 0)
+			return;
+		split("Escaped");
+		finishNanos = getElapsedNanos();
+	}
+
+	/**
+	 * Gets the time counted so far
+	 * @return the time in nanoseconds
+	 */
+	public long getElapsedNanos()
+	{
+		if (finishNanos >= 0)
+			return finishNanos;
+		long now = pauseStart >= 0 ? pauseStart : source.nanoTime();
+		return now - startTime - pausedNanos;
+	}
+
+	/**
+	 * Gets the time counted so far as shown on the screen
+	 * @return the time in tenths of a second
+	 */
+	public int getTenths()
+	{
+		return (int) (getElapsedNanos() / NANOS_PER_TENTH);
+	}
+
+	/**
+	 * Gets the time counted so far as kept in the records
+	 * @return the time in seconds, rounded to hundredths
+	 */
+	public double getSeconds()
+	{
+		return Math.round(getElapsedNanos() / 10000000.0) / 100.0;
+	}
+
+	public boolean isPaused()
+	{
+		return pauseStart >= 0;
+	}
+
+	public boolean isFinished()
+	{
+		return finishNanos >= 0;
+	}
+
+	public int getSplitCount()
+	{
+		return splitNames.size();
+	}
+
+	public String getSplitName(int split)
+	{
+		return splitNames.get(split);
+	}
+
+	/**
+	 * Gets when something happened
+	 * @param split the number of the split time
+	 * @return the time since the start in nanoseconds
+	 */
+	public long getSplitNanos(int split)
+	{
+		return splitTimes.get(split);
+	}
+
+	/**
+	 * Lists every split time
+	 * @return one line per split time
+	 */
+	public String splitReport()
+	{
+		StringBuilder report = new StringBuilder();
+		for (int split = 0; split < splitNames.size(); split++)
+			report.append(String.format("%n%6.2f s  %s", splitTimes
+					.get(split) / 1000000000.0, splitNames.get(split)));
+		return report.toString();
+	}
+
+	/**
+	 * Where a clock gets the current time from, so that other clocks can be
+	 * used for testing and simulations
+	 */
+	public interface TimeSource
+	{
+		/**
+		 * Gets the current time, which must never go backwards
+		 * @return the time in nanoseconds from any starting point
+		 */
+		long nanoTime();
+	}
+
+	/**
+	 * A clock that only moves when told to
+	 */
+	public static class ManualTime implements TimeSource
+	{
+		private long now;
+
+		public long nanoTime()
+		{
+			return now;
+		}
+
+		/**
+		 * Moves the clock forward
+		 * @param nanos the time to add in nanoseconds
+		 */
+		public void advance(long nanos)
+		{
+			now += nanos;
+		}
+	}
+}
@@ -0,0 +1,165 @@
+/**
+ * Compiles the level text files into the binary level format read by
+ * LevelLoader. Run once whenever a level text file is edited:
+ * java LevelCompiler [level numbers...]
+ *
+ * Layout of a compiled level (all numbers big-endian):
+ * Header - magic, version, reserved short, source length, source CRC-32,
+ * source modification time, start x, start y, description string,
+ * background string, string count, background object count, interactive
+ * object count
+ * String table - every distinct string as an unsigned short length followed
+ * by its UTF-8 bytes
+ * Background object records - name, description, image, x, y
+ * Interactive object records - name, 3 descriptions, 3 images, x, y, host
+ * item number, hidden item number, item to use number, flags
+ * @author agent
+ * @version October 18, 2026
+ */
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+public class LevelCompiler
+{
+	private ArrayList<String> strings = new ArrayList<String>();
+	private HashMap<String, Integer> stringIndices =
+			new HashMap<String, Integer>();
+
+	/**
+	 * Compiles the given levels (all levels if none are given)
+	 * @param levels the level numbers to compile
+	 */
+	public static void main(String[] levels)
+	{
+		ArrayList<Integer> toCompile = new ArrayList<Integer>();
+		if (levels.length == 0)
+		{
+			for (int level = 1; LevelLoader.textFile(level).exists(); level++)
+				toCompile.add(level);
+		}
+		else
+		{
+			for (String level : levels)
+				toCompile.add(Integer.parseInt(level));
+		}
+
+		for (int level : toCompile)
+		{
+			try
+			{
+				File output = LevelLoader.binaryFile(level);
+				new LevelCompiler().compile(LevelLoader.textFile(level),
+						output);
+				System.out.println("Compiled level " + level + " to "
+						+ output + " (" + output.length() + " bytes)");
+			}
+			catch (IOException | RuntimeException e)
+			{
+				System.out.println("Could not compile level " + level + ": "
+						+ e);
+				System.exit(1);
+			}
+		}
+	}
+
+	/**
+	 * Compiles a single level text file
+	 * @param source the level text file
+	 * @param output the compiled file to write
+	 * @throws IOException if either file could not be accessed
+	 */
+	public void compile(File source, File output) throws IOException
+	{
+		byte[] sourceBytes = Files.readAllBytes(source.toPath());
+		LevelData level = LevelLoader.readText(source);
+		LevelData.ObjectData[] backObjects = level.getBackObjects();
+		LevelData.ObjectData[] levelObjects = level.getLevelObjects();
+
+		// Build the string table first so the header knows its size
+		int description = stringIndex(level.getDescription());
+		int background = stringIndex(level.getBackgroundName());
+		int[][] backRecords = new int[backObjects.length][];
+		for (int object = 0; object < backObjects.length; object++)
+		{
+			LevelData.ObjectData data = backObjects[object];
+			backRecords[object] = new int[] { stringIndex(data.name),
+					stringIndex(data.descriptions[0]),
+					stringIndex(data.images[0]), data.x, data.y };
+		}
+		int[][] levelRecords = new int[levelObjects.length][];
+		for (int object = 0; object < levelObjects.length; object++)
+		{
+			LevelData.ObjectData data = levelObjects[object];
+			int flags = (data.isItem ? LevelLoader.FLAG_ITEM : 0)
+					| (data.isClickable ? LevelLoader.FLAG_CLICKABLE : 0);
+			levelRecords[object] = new int[] { stringIndex(data.name),
+					stringIndex(data.descriptions[0]),
+					stringIndex(data.descriptions[1]),
+					stringIndex(data.descriptions[2]),
+					stringIndex(data.images[0]), stringIndex(data.images[1]),
+					stringIndex(data.images[2]), data.x, data.y,
+					data.hostItemNo, data.hiddenItemNo, data.toUseItemNo,
+					flags };
+		}
+
+		// Write to a temporary file so a failed compile never leaves a
+		// half-written level behind
+		File temp = new File(output.getPath() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(temp))))
+		{
+			out.writeInt(LevelLoader.MAGIC);
+			out.writeShort(LevelLoader.VERSION);
+			out.writeShort(0);
+			out.writeInt(sourceBytes.length);
+			out.writeInt(LevelLoader.checksum(sourceBytes));
+			out.writeLong(source.lastModified());
+			out.writeInt(level.getStart().x);
+			out.writeInt(level.getStart().y);
+			out.writeInt(description);
+			out.writeInt(background);
+			out.writeInt(strings.size());
+			out.writeInt(backRecords.length);
+			out.writeInt(levelRecords.length);
+
+			for (String string : strings)
+			{
+				byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+				if (bytes.length > 0xFFFF)
+					throw new IOException("String too long: " + string);
+				out.writeShort(bytes.length);
+				out.write(bytes);
+			}
+			for (int[] record : backRecords)
+				for (int field : record)
+					out.writeInt(field);
+			for (int[] record : levelRecords)
+				for (int field : record)
+					out.writeInt(field);
+		}
+		if (output.exists() && !output.delete() || !temp.renameTo(output))
+			throw new IOException("Could not replace " + output);
+	}
+
+	/**
+	 * Finds the position of a string in the string table, adding it if it
+	 * is not there yet
+	 * @param string the string
+	 * @return its index in the string table
+	 */
+	private int stringIndex(String string)
+	{
+		Integer index = stringIndices.get(string);
+		if (index == null)
+		{
+			index = strings.size();
+			strings.add(string);
+			stringIndices.put(string, index);
+		}
+		return index;
+	}
+}
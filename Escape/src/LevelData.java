@@ -0,0 +1,139 @@
+/**
+ * Holds the raw information of one level as it is described in its level
+ * file, independent of whether it was read from the text or binary format
+ * New object arrays can be created from it every time the level is started
+ * @author agent
+ * @version October 18, 2026
+ */
+
+import java.awt.Point;
+
+public class LevelData
+{
+	private String description, backgroundName;
+	private Point start;
+	private ObjectData[] backObjects, levelObjects;
+
+	/**
+	 * Constructor for the level data
+	 * @param description the level name shown at the top of the screen
+	 * @param backgroundName the path of the background image
+	 * @param start the starting position of the character
+	 * @param backObjects the information of every background object
+	 * @param levelObjects the information of every interactive object
+	 */
+	public LevelData(String description, String backgroundName, Point start,
+			ObjectData[] backObjects, ObjectData[] levelObjects)
+	{
+		this.description = description;
+		this.backgroundName = backgroundName;
+		this.start = start;
+		this.backObjects = backObjects;
+		this.levelObjects = levelObjects;
+	}
+
+	/**
+	 * Creates a new set of background objects for this level
+	 * @return the array of background objects
+	 */
+	public EObject[] createBackObjects()
+	{
+		EObject[] objects = new EObject[backObjects.length];
+		for (int object = 0; object < objects.length; object++)
+		{
+			ObjectData data = backObjects[object];
+			objects[object] = new EObject(data.name, data.descriptions[0],
+					data.images[0], new Point(data.x, data.y));
+		}
+		return objects;
+	}
+
+	/**
+	 * Creates a new set of interactive objects for this level
+	 * @return the array of interactive objects
+	 */
+	public EObject[] createLevelObjects()
+	{
+		EObject[] objects = new EObject[levelObjects.length];
+		for (int object = 0; object < objects.length; object++)
+		{
+			ObjectData data = levelObjects[object];
+			objects[object] = new EObject(data.name, data.descriptions[0],
+					data.descriptions[1], data.descriptions[2], data.images[0],
+					data.images[1], data.images[2], new Point(data.x, data.y),
+					data.hostItemNo, data.hiddenItemNo, data.toUseItemNo,
+					data.isItem, data.isClickable);
+		}
+		return objects;
+	}
+
+	public String getDescription()
+	{
+		return description;
+	}
+
+	public String getBackgroundName()
+	{
+		return backgroundName;
+	}
+
+	public Point getStart()
+	{
+		return new Point(start);
+	}
+
+	public ObjectData[] getBackObjects()
+	{
+		return backObjects;
+	}
+
+	public ObjectData[] getLevelObjects()
+	{
+		return levelObjects;
+	}
+
+	/**
+	 * The information of a single object exactly as given in the level file
+	 * Background objects only use the first description and image
+	 */
+	public static class ObjectData
+	{
+		public final String name;
+		public final String[] descriptions, images;
+		public final int x, y;
+		public final int hostItemNo, hiddenItemNo, toUseItemNo;
+		public final boolean isItem, isClickable;
+
+		/**
+		 * Constructor for background object information
+		 */
+		public ObjectData(String name, String description, String image,
+				int x, int y)
+		{
+			this(name, new String[] { description, description, description },
+					new String[] { image, null, null }, x, y, -1, -1, -1,
+					false, false);
+		}
+
+		/**
+		 * Constructor for interactive object information
+		 * @overloads the previous Constructor
+		 */
+		public ObjectData(String name, String[] descriptions,
+				String[] images, int x, int y, int hostItemNo,
+				int hiddenItemNo, int toUseItemNo, boolean isItem,
+				boolean isClickable)
+		{
+			this.name = name;
+			this.descriptions = descriptions;
+			this.images = images;
+			this.x = x;
+			this.y = y;
+			this.hostItemNo = hostItemNo;
+			this.hiddenItemNo = hiddenItemNo;
+			this.toUseItemNo = toUseItemNo;
+			this.isItem = isItem;
+			this.isClickable = isClickable;
+		}
+	}
+}
@@ -0,0 +1,304 @@
+/**
+ * Reads in level files
+ * Compiled binary levels (LevelN.lvl, see LevelCompiler) are memory-mapped
+ * and read directly, while the original text files (LevelN.txt) are used
+ * whenever no up to date compiled version exists
+ * Text files are written in keyed sections (see LevelParser), files in the
+ * old format of one value per line are still read
+ * @author agent
+ * @version October 18, 2026
+ */
+
+import java.awt.Point;
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Scanner;
+import java.util.zip.CRC32;
+
+public class LevelLoader
+{
+	// Identifies a compiled level file ("ESCL") and its layout version
+	public static final int MAGIC = 0x4553434C;
+	public static final short VERSION = 1;
+
+	// Flags stored in the last field of an interactive object record
+	public static final int FLAG_ITEM = 1;
+	public static final int FLAG_CLICKABLE = 2;
+
+	// Smallest size of a string and of each kind of record in bytes
+	private static final int MIN_STRING_SIZE = 2;
+	private static final int BACK_RECORD_SIZE = 5 * 4;
+	private static final int LEVEL_RECORD_SIZE = 13 * 4;
+
+	/**
+	 * Gets the text file of the given level
+	 * @param level the level number
+	 * @return the level text file
+	 */
+	public static File textFile(int level)
+	{
+		return new File("Levels//Level" + level + ".txt");
+	}
+
+	/**
+	 * Gets the compiled file of the given level
+	 * @param level the level number
+	 * @return the compiled level file
+	 */
+	public static File binaryFile(int level)
+	{
+		return new File("Levels//Level" + level + ".lvl");
+	}
+
+	/**
+	 * Loads the given level, preferring the compiled version if it was
+	 * compiled from the current text file
+	 * @param level the level number
+	 * @return the level information
+	 * @throws IOException if the level could not be read
+	 */
+	public static LevelData load(int level) throws IOException
+	{
+		File text = textFile(level);
+		File binary = binaryFile(level);
+		if (binary.exists())
+		{
+			try
+			{
+				LevelData data = readBinary(binary, text);
+				if (data != null)
+					return data;
+			}
+			catch (IOException | RuntimeException e)
+			{
+				// A damaged compiled file is ignored in favour of the text file
+				System.out.println("Invalid compiled level file " + binary);
+			}
+		}
+		return readText(text);
+	}
+
+	/**
+	 * Reads a level text file in either format
+	 * @param file the text file
+	 * @return the level information
+	 * @throws IOException if the file could not be read
+	 * @throws LevelParser.FormatException if the level has any errors
+	 */
+	public static LevelData readText(File file) throws IOException
+	{
+		if (isKeyed(file))
+			return LevelParser.parse(file);
+		return readOldText(file);
+	}
+
+	/**
+	 * Checks whether a level text file is written in keyed sections
+	 * @param file the text file
+	 * @return whether the file is read by LevelParser
+	 * @throws IOException if the file could not be read
+	 */
+	public static boolean isKeyed(File file) throws IOException
+	{
+		BufferedReader in = new BufferedReader(new InputStreamReader(
+				new FileInputStream(file), StandardCharsets.UTF_8));
+		try
+		{
+			String line;
+			while ((line = in.readLine()) != null)
+				if (!line.trim().isEmpty())
+					return LevelParser.isKeyed(line);
+			return false;
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	/**
+	 * Reads a level from its original text format, where every value is on
+	 * a line of its own in a fixed order
+	 * @param file the text file
+	 * @return the level information
+	 * @throws FileNotFoundException if the file does not exist
+	 */
+	public static LevelData readOldText(File file)
+			throws FileNotFoundException
+	{
+		Scanner fileIn = new Scanner(file);
+		try
+		{
+			// Reads in level information, such as level name, background
+			// image, and number of objects
+			String description = fileIn.nextLine(); // 1st line
+			String backgroundName = fileIn.nextLine();
+			LevelData.ObjectData[] backObjects =
+					new LevelData.ObjectData[fileIn.nextInt()];
+			LevelData.ObjectData[] levelObjects =
+					new LevelData.ObjectData[fileIn.nextInt()];
+
+			// The character's starting point
+			Point start = new Point(fileIn.nextInt(), fileIn.nextInt());
+
+			fileIn.nextLine(); // Dummy statement
+
+			// Background Objects
+			for (int object = 0; object < backObjects.length; object++)
+			{
+				fileIn.nextLine();
+				backObjects[object] = new LevelData.ObjectData(fileIn
+						.nextLine().trim(), fileIn.nextLine().trim(), fileIn
+						.nextLine().trim(), fileIn.nextInt(), fileIn.nextInt());
+				fileIn.nextLine();
+			}
+
+			// Interactive Objects
+			for (int object = 0; object < levelObjects.length; object++)
+			{
+				fileIn.nextLine(); // Dummy statement
+
+				String name = fileIn.nextLine().trim();
+				String[] descriptions = { fileIn.nextLine().trim(),
+						fileIn.nextLine().trim(), fileIn.nextLine().trim() };
+				String[] images = { fileIn.nextLine().trim(),
+						fileIn.nextLine().trim(), fileIn.nextLine().trim() };
+				levelObjects[object] = new LevelData.ObjectData(name,
+						descriptions, images, fileIn.nextInt(), // Position
+						fileIn.nextInt(), fileIn.nextInt(), // host item number
+						fileIn.nextInt(), // hidden item number
+						fileIn.nextInt(), fileIn.nextBoolean(), // isItem
+						fileIn.nextBoolean()); // isClickable
+				fileIn.nextLine(); // Dummy statement
+			}
+			return new LevelData(description, backgroundName, start,
+					backObjects, levelObjects);
+		}
+		finally
+		{
+			fileIn.close();
+		}
+	}
+
+	/**
+	 * Reads a compiled level by memory-mapping it
+	 * @param file the compiled file
+	 * @param source the text file it was compiled from (may not exist)
+	 * @return the level information or null if the compiled file is out of
+	 *         date with its text file
+	 * @throws IOException if the file could not be read or is invalid
+	 */
+	public static LevelData readBinary(File file, File source)
+			throws IOException
+	{
+		MappedByteBuffer buffer;
+		try (FileChannel channel = new RandomAccessFile(file, "r")
+				.getChannel())
+		{
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+					channel.size());
+		}
+
+		try
+		{
+			return readBinary(buffer, file, source);
+		}
+		catch (BufferUnderflowException | IndexOutOfBoundsException e)
+		{
+			// Cut off, or numbers pointing outside of the file
+			throw new IOException("Damaged compiled level file: " + file, e);
+		}
+	}
+
+	/**
+	 * Reads the contents of a compiled level
+	 * @return the level information or null if it is out of date
+	 */
+	private static LevelData readBinary(MappedByteBuffer buffer, File file,
+			File source) throws IOException
+	{
+		// Header
+		if (buffer.getInt() != MAGIC || buffer.getShort() != VERSION)
+			throw new IOException("Not a compiled level file: " + file);
+		buffer.getShort(); // Reserved
+		int sourceLength = buffer.getInt();
+		int sourceChecksum = buffer.getInt();
+		long sourceModified = buffer.getLong();
+		// The text file is only read if its time changed without its
+		// length, as copying or checking it out can change just the time
+		if (source.exists() && (source.length() != sourceLength
+				|| source.lastModified() != sourceModified
+				&& checksum(Files.readAllBytes(source.toPath()))
+						!= sourceChecksum))
+			return null;
+		Point start = new Point(buffer.getInt(), buffer.getInt());
+		int descriptionString = buffer.getInt();
+		int backgroundString = buffer.getInt();
+		int stringCount = buffer.getInt();
+		int backCount = buffer.getInt();
+		int levelCount = buffer.getInt();
+		// Counts of a damaged file can be more than the rest of it holds
+		if (stringCount < 0 || backCount < 0 || levelCount < 0
+				|| (long) stringCount * MIN_STRING_SIZE + (long) backCount
+						* BACK_RECORD_SIZE + (long) levelCount
+						* LEVEL_RECORD_SIZE > buffer.remaining())
+			throw new IOException("Damaged compiled level file: " + file);
+		String[] strings = new String[stringCount];
+		LevelData.ObjectData[] backObjects =
+				new LevelData.ObjectData[backCount];
+		LevelData.ObjectData[] levelObjects =
+				new LevelData.ObjectData[levelCount];
+
+		// String table
+		for (int string = 0; string < strings.length; string++)
+		{
+			byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+			buffer.get(bytes);
+			strings[string] = new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		// Fixed-width records
+		for (int object = 0; object < backObjects.length; object++)
+		{
+			backObjects[object] = new LevelData.ObjectData(
+					strings[buffer.getInt()], strings[buffer.getInt()],
+					strings[buffer.getInt()], buffer.getInt(), buffer.getInt());
+		}
+		for (int object = 0; object < levelObjects.length; object++)
+		{
+			String name = strings[buffer.getInt()];
+			String[] descriptions = { strings[buffer.getInt()],
+					strings[buffer.getInt()], strings[buffer.getInt()] };
+			String[] images = { strings[buffer.getInt()],
+					strings[buffer.getInt()], strings[buffer.getInt()] };
+			int x = buffer.getInt();
+			int y = buffer.getInt();
+			int hostItemNo = buffer.getInt();
+			int hiddenItemNo = buffer.getInt();
+			int toUseItemNo = buffer.getInt();
+			int flags = buffer.getInt();
+			levelObjects[object] = new LevelData.ObjectData(name,
+					descriptions, images, x, y, hostItemNo, hiddenItemNo,
+					toUseItemNo, (flags & FLAG_ITEM) != 0,
+					(flags & FLAG_CLICKABLE) != 0);
+		}
+		return new LevelData(strings[descriptionString],
+				strings[backgroundString], start, backObjects, levelObjects);
+	}
+
+	/**
+	 * Calculates the checksum used to tie a compiled file to its source
+	 * @param bytes the contents of the text file
+	 * @return the CRC-32 of the given bytes
+	 */
+	public static int checksum(byte[] bytes)
+	{
+		CRC32 crc = new CRC32();
+		crc.update(bytes, 0, bytes.length);
+		return (int) crc.getValue();
+	}
+}
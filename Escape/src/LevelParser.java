@@ -0,0 +1,711 @@
+/**
+ * Reads levels written as keyed sections, so that lines can be added,
+ * left out or moved around without breaking the rest of the level:
+ *
+ * [level]
+ * description = Third Time's the Charm
+ * background = GameScreens//Floor2.png
+ * start = 500 200
+ *
+ * [back]
+ * name = Table
+ * description = A boring old table.
+ * image = Table3.png
+ * position = 50 350
+ *
+ * [object chest]
+ * name = Chest
+ * description = A locked chest.
+ * useDescription = The key fits!
+ * image = Chest.png
+ * useImage = ChestOpen.png
+ * position = 300 100
+ * hidden = key
+ * use = key
+ * clickable = true
+ *
+ * Background objects have a name, description, image and position
+ * Interactive objects can also have a clickDescription, useDescription,
+ * clickImage and useImage, which are the same as the description and image
+ * if left out, the objects they are hidden in (host), hide (hidden) or
+ * need (use), given by the id after their object, and whether they are an
+ * item or clickable
+ * host and hidden can be none, which is the same as leaving them out, and
+ * an object can not refer to itself
+ * An object without use is opened by clicking it, one with use = none can
+ * not be opened and clicking it only changes its picture
+ * Objects are numbered in the order they are written and lines starting
+ * with # are comments
+ * The file is read line by line in one pass and every error is reported
+ * with its line and column, references are checked once the whole file
+ * has been read
+ * Run on its own, level files are checked and those in the old format are
+ * rewritten in this one: java LevelParser [level numbers]
+ * @author agent
+ * @version October 18, 2026
+ */
+
+import java.awt.Point;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.regex.Pattern;
+
+public class LevelParser
+{
+	private static final List<String> LEVEL_KEYS = Arrays.asList(
+			"description", "background", "start");
+	private static final List<String> BACK_KEYS = Arrays.asList("name",
+			"description", "image", "position");
+	private static final List<String> OBJECT_KEYS = Arrays.asList("name",
+			"description", "clickDescription", "useDescription", "image",
+			"clickImage", "useImage", "position", "host", "hidden", "use",
+			"item", "clickable");
+
+	private static final int LEVEL = 0;
+	private static final int BACK = 1;
+	private static final int OBJECT = 2;
+	// Keys of a section that could not be read are skipped
+	private static final int UNKNOWN = 3;
+
+	// No item can be used on the object (use = none)
+	private static final String NONE = "none";
+	private static final int NO_ITEM = -2;
+
+	private static final Pattern SPACES = Pattern.compile("\\s+");
+
+	private final String fileName;
+	// Every error as its line, its column and its message
+	private final ArrayList<Object[]> errors = new ArrayList<Object[]>();
+
+	// The section being read, with every value and where it was written
+	private int section = UNKNOWN;
+	private int sectionLine;
+	private List<String> keys = OBJECT_KEYS;
+	// Kept in the order of the section's keys
+	private Value[] values = new Value[OBJECT_KEYS.size()];
+
+	private boolean levelRead;
+	private String description, backgroundName;
+	private int startX, startY;
+	private final ArrayList<LevelData.ObjectData> backObjects =
+			new ArrayList<LevelData.ObjectData>();
+	// Interactive objects keep their values until their references can be
+	// looked up
+	private final ArrayList<Value[]> levelObjects = new ArrayList<Value[]>();
+	private final HashMap<String, Integer> ids = new HashMap<String, Integer>();
+
+	private LevelParser(String fileName)
+	{
+		this.fileName = fileName;
+	}
+
+	/**
+	 * Checks whether a level file is written in keyed sections rather than
+	 * the old format, which starts with the level's description
+	 * @param firstLine the first line of the file that is not empty
+	 * @return whether the file is read by LevelParser
+	 */
+	public static boolean isKeyed(String firstLine)
+	{
+		String line = firstLine.trim();
+		return line.startsWith("[") || line.startsWith("#");
+	}
+
+	/**
+	 * Reads a level file
+	 * @param file the file
+	 * @return the level information
+	 * @throws IOException if the file could not be read
+	 * @throws FormatException if the level has any errors
+	 */
+	public static LevelData parse(File file) throws IOException
+	{
+		Reader in = new InputStreamReader(new FileInputStream(file),
+				StandardCharsets.UTF_8);
+		try
+		{
+			return parse(in, file.getPath());
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	/**
+	 * Reads a level
+	 * @param in where the level is read from
+	 * @param fileName the name errors are reported with
+	 * @return the level information
+	 * @throws IOException if the level could not be read
+	 * @throws FormatException if the level has any errors
+	 */
+	public static LevelData parse(Reader in, String fileName)
+			throws IOException
+	{
+		return new LevelParser(fileName).read(new BufferedReader(in));
+	}
+
+	private LevelData read(BufferedReader in) throws IOException
+	{
+		int lineNo = 0;
+		String line;
+		while ((line = in.readLine()) != null)
+		{
+			lineNo++;
+			readLine(line, lineNo);
+		}
+		endSection();
+		if (!levelRead)
+			error(Math.max(1, lineNo), 1, "missing [level] section");
+
+		LevelData.ObjectData[] objects = resolve();
+		if (!errors.isEmpty())
+			throw new FormatException(sortedErrors());
+		return new LevelData(description, backgroundName, new Point(startX,
+				startY), backObjects.toArray(new LevelData.ObjectData[backObjects
+				.size()]), objects);
+	}
+
+	/**
+	 * Reads a section header, a key and its value, a comment or an empty
+	 * line
+	 */
+	private void readLine(String line, int lineNo)
+	{
+		int first = 0;
+		while (first < line.length()
+				&& Character.isWhitespace(line.charAt(first)))
+			first++;
+		if (first == line.length() || line.charAt(first) == '#')
+			return;
+
+		if (line.charAt(first) == '[')
+		{
+			endSection();
+			startSection(line, first, lineNo);
+			return;
+		}
+
+		int equals = line.indexOf('=', first);
+		if (equals < 0)
+		{
+			error(lineNo, first + 1, "expected key = value");
+			return;
+		}
+		String key = line.substring(first, equals).trim();
+		int valueStart = equals + 1;
+		while (valueStart < line.length()
+				&& Character.isWhitespace(line.charAt(valueStart)))
+			valueStart++;
+		Value value = new Value(line.substring(valueStart).trim(), lineNo,
+				valueStart + 1);
+
+		if (section == UNKNOWN)
+		{
+			// Already reported with the section
+			if (sectionLine == 0)
+				error(lineNo, first + 1, "key outside of any section");
+			return;
+		}
+		int index = keys.indexOf(key);
+		if (index < 0)
+			error(lineNo, first + 1, "unknown key '" + key + "'");
+		else if (values[index] != null)
+			error(lineNo, first + 1, "'" + key + "' given twice");
+		else
+			values[index] = value;
+	}
+
+	/**
+	 * Starts reading a section
+	 * @param line the line with the section header
+	 * @param first where the header starts
+	 */
+	private void startSection(String line, int first, int lineNo)
+	{
+		sectionLine = lineNo;
+		section = UNKNOWN;
+		int end = line.indexOf(']', first);
+		if (end < 0 || !line.substring(end + 1).trim().isEmpty())
+		{
+			error(lineNo, first + 1, "expected [section]");
+			return;
+		}
+		String[] parts = SPACES.split(line.substring(first + 1, end).trim());
+		String type = parts[0];
+		if (parts.length > 2)
+			error(lineNo, first + 1, "expected [" + type + " id]");
+		else if (type.equals("level") && parts.length == 1)
+		{
+			if (levelRead)
+				error(lineNo, first + 1, "[level] given twice");
+			else
+			{
+				section = LEVEL;
+				keys = LEVEL_KEYS;
+			}
+		}
+		else if (type.equals("back") && parts.length == 1)
+		{
+			section = BACK;
+			keys = BACK_KEYS;
+		}
+		else if (type.equals("object"))
+		{
+			section = OBJECT;
+			keys = OBJECT_KEYS;
+			if (parts.length == 2)
+			{
+				// Objects without an id can not be referred to
+				String id = parts[1];
+				int column = line.indexOf(id, first + 1 + type.length()) + 1;
+				if (id.equals(NONE))
+					error(lineNo, column, "'" + NONE
+							+ "' can not be an object id");
+				else if (ids.containsKey(id))
+					error(lineNo, column, "object id '" + id
+							+ "' used twice");
+				else
+					ids.put(id, levelObjects.size());
+			}
+		}
+		else
+			error(lineNo, first + 1, "unknown section [" + type + "]");
+	}
+
+	/**
+	 * Checks and keeps the values of the section read last
+	 */
+	private void endSection()
+	{
+		if (section == LEVEL)
+		{
+			levelRead = true;
+			description = required("description");
+			backgroundName = required("background");
+			if (get("start") == null)
+				error(sectionLine, 1, "missing 'start'");
+			int[] point = point(get("start"), "start");
+			if (point != null)
+			{
+				startX = point[0];
+				startY = point[1];
+			}
+		}
+		else if (section == BACK)
+		{
+			String name = required("name");
+			String image = required("image");
+			if (get("position") == null)
+				error(sectionLine, 1, "missing 'position'");
+			int[] position = point(get("position"), "position");
+			Value description = get("description");
+			if (name != null && image != null && position != null)
+				backObjects.add(new LevelData.ObjectData(name,
+						description == null ? "" : description.text, image,
+						position[0], position[1]));
+		}
+		else if (section == OBJECT)
+		{
+			required("name");
+			required("image");
+			if (get("position") == null)
+				error(sectionLine, 1, "missing 'position'");
+			levelObjects.add(values);
+			values = new Value[OBJECT_KEYS.size()];
+		}
+		section = UNKNOWN;
+		Arrays.fill(values, null);
+	}
+
+	/**
+	 * Builds the interactive objects now that every id is known
+	 * @return the objects, or null if any had an error
+	 */
+	private LevelData.ObjectData[] resolve()
+	{
+		LevelData.ObjectData[] objects =
+				new LevelData.ObjectData[levelObjects.size()];
+		for (int object = 0; object < objects.length; object++)
+		{
+			Value[] objectValues = levelObjects.get(object);
+			String description = text(objectValues, "description", "");
+			String image = text(objectValues, "image", null);
+			String[] descriptions = { description,
+					text(objectValues, "clickDescription", description),
+					text(objectValues, "useDescription", description) };
+			String[] images = { image, text(objectValues, "clickImage", image),
+					text(objectValues, "useImage", image) };
+			int[] position = point(value(objectValues, "position"), "position");
+			int host = reference(value(objectValues, "host"), object);
+			int hidden = reference(value(objectValues, "hidden"), object);
+			Value useValue = value(objectValues, "use");
+			int use = useValue != null && useValue.text.equals(NONE) ? NO_ITEM
+					: reference(useValue, object);
+			boolean item = flag(value(objectValues, "item"));
+			boolean clickable = flag(value(objectValues, "clickable"));
+			if (position != null && image != null)
+				objects[object] = new LevelData.ObjectData(text(objectValues,
+						"name", null), descriptions, images, position[0],
+						position[1], host, hidden, use, item, clickable);
+		}
+		return objects;
+	}
+
+	/**
+	 * Gets a value that every section of its kind must have
+	 * @return the value, or null if it is missing
+	 */
+	private String required(String key)
+	{
+		Value value = get(key);
+		if (value == null)
+		{
+			error(sectionLine, 1, "missing '" + key + "'");
+			return null;
+		}
+		return value.text;
+	}
+
+	/**
+	 * Gets a value of the section being read
+	 * @return the value, or null if it was left out
+	 */
+	private Value get(String key)
+	{
+		return values[keys.indexOf(key)];
+	}
+
+	/**
+	 * Gets a value of an interactive object
+	 * @return the value, or null if it was left out
+	 */
+	private static Value value(Value[] values, String key)
+	{
+		return values[OBJECT_KEYS.indexOf(key)];
+	}
+
+	private static String text(Value[] values, String key, String otherwise)
+	{
+		Value value = value(values, key);
+		return value == null ? otherwise : value.text;
+	}
+
+	/**
+	 * Reads two whole numbers, such as a position
+	 * @return the numbers, or null if they could not be read
+	 */
+	private int[] point(Value value, String key)
+	{
+		if (value == null)
+			return null;
+		String[] parts = SPACES.split(value.text);
+		if (parts.length != 2)
+		{
+			error(value.line, value.column, "'" + key
+					+ "' needs an x and a y");
+			return null;
+		}
+		try
+		{
+			return new int[] { Integer.parseInt(parts[0]),
+					Integer.parseInt(parts[1]) };
+		}
+		catch (NumberFormatException e)
+		{
+			error(value.line, value.column, "'" + key
+					+ "' needs whole numbers");
+			return null;
+		}
+	}
+
+	private boolean flag(Value value)
+	{
+		if (value == null || value.text.equals("false"))
+			return false;
+		if (!value.text.equals("true"))
+			error(value.line, value.column, "expected true or false");
+		return true;
+	}
+
+	/**
+	 * Looks up the object an id refers to
+	 * @param value the id, none or null if there is no reference
+	 * @param object the number of the object referring to it
+	 * @return the object number, or -1 if there is no reference
+	 */
+	private int reference(Value value, int object)
+	{
+		if (value == null || value.text.equals(NONE))
+			return -1;
+		Integer other = ids.get(value.text);
+		if (other == null)
+		{
+			error(value.line, value.column, "no object with id '"
+					+ value.text + "'");
+			return -1;
+		}
+		if (other == object)
+		{
+			error(value.line, value.column,
+					"an object can not refer to itself");
+			return -1;
+		}
+		return other;
+	}
+
+	private void error(int line, int column, String message)
+	{
+		errors.add(new Object[] { line, column, message });
+	}
+
+	/**
+	 * Puts the errors in the order they appear in the file, as references
+	 * are only checked at the end
+	 * @return every error as file:line:column: message
+	 */
+	private List<String> sortedErrors()
+	{
+		Collections.sort(errors, new Comparator<Object[]>()
+		{
+			public int compare(Object[] first, Object[] second)
+			{
+				int line = (Integer) first[0] - (Integer) second[0];
+				return line != 0 ? line : (Integer) first[1]
+						- (Integer) second[1];
+			}
+		});
+		ArrayList<String> sorted = new ArrayList<String>();
+		for (Object[] error : errors)
+			sorted.add(fileName + ":" + error[0] + ":" + error[1] + ": "
+					+ error[2]);
+		return sorted;
+	}
+
+	/**
+	 * Writes a level in keyed sections
+	 * @param level the level information
+	 * @param out where the level is written, with Windows line endings
+	 *            like the other level files
+	 */
+	public static void write(LevelData level, PrintWriter out)
+	{
+		LevelData.ObjectData[] levelObjects = level.getLevelObjects();
+		// Every interactive object gets an id from its name
+		String[] objectIds = new String[levelObjects.length];
+		HashSet<String> used = new HashSet<String>();
+		used.add(NONE);
+		for (int object = 0; object < levelObjects.length; object++)
+		{
+			String id = levelObjects[object].name.toLowerCase().replaceAll(
+					"[^a-z0-9]", "");
+			if (id.isEmpty())
+				id = "object";
+			String unique = id;
+			for (int number = 2; !used.add(unique); number++)
+				unique = id + number;
+			objectIds[object] = unique;
+		}
+
+		out.print("[level]\r\n");
+		line(out, "description", level.getDescription());
+		line(out, "background", level.getBackgroundName());
+		line(out, "start", level.getStart().x + " " + level.getStart().y);
+
+		for (LevelData.ObjectData data : level.getBackObjects())
+		{
+			out.print("\r\n[back]\r\n");
+			line(out, "name", data.name);
+			if (!data.descriptions[0].isEmpty())
+				line(out, "description", data.descriptions[0]);
+			line(out, "image", data.images[0]);
+			line(out, "position", data.x + " " + data.y);
+		}
+
+		for (int object = 0; object < levelObjects.length; object++)
+		{
+			LevelData.ObjectData data = levelObjects[object];
+			out.print("\r\n[object " + objectIds[object] + "]\r\n");
+			line(out, "name", data.name);
+			if (!data.descriptions[0].isEmpty())
+				line(out, "description", data.descriptions[0]);
+			if (!data.descriptions[1].equals(data.descriptions[0]))
+				line(out, "clickDescription", data.descriptions[1]);
+			if (!data.descriptions[2].equals(data.descriptions[0]))
+				line(out, "useDescription", data.descriptions[2]);
+			line(out, "image", data.images[0]);
+			if (!data.images[1].equals(data.images[0]))
+				line(out, "clickImage", data.images[1]);
+			if (!data.images[2].equals(data.images[0]))
+				line(out, "useImage", data.images[2]);
+			line(out, "position", data.x + " " + data.y);
+			if (data.hostItemNo >= 0)
+				line(out, "host", objectIds[data.hostItemNo]);
+			if (data.hiddenItemNo >= 0)
+				line(out, "hidden", objectIds[data.hiddenItemNo]);
+			if (data.toUseItemNo >= 0)
+				line(out, "use", objectIds[data.toUseItemNo]);
+			else if (data.toUseItemNo == NO_ITEM)
+				line(out, "use", NONE);
+			if (data.isItem)
+				line(out, "item", "true");
+			if (data.isClickable)
+				line(out, "clickable", "true");
+		}
+	}
+
+	private static void line(PrintWriter out, String key, String value)
+	{
+		out.print(key + " = " + value + "\r\n");
+	}
+
+	/**
+	 * Checks level files, rewriting those still in the old format
+	 * @param levels the level numbers (all levels if none are given)
+	 */
+	public static void main(String[] levels)
+	{
+		ArrayList<Integer> toCheck = new ArrayList<Integer>();
+		if (levels.length == 0)
+		{
+			for (int level = 1; LevelLoader.textFile(level).exists(); level++)
+				toCheck.add(level);
+		}
+		else
+		{
+			for (String level : levels)
+				toCheck.add(Integer.parseInt(level));
+		}
+
+		boolean failed = false;
+		for (int level : toCheck)
+		{
+			File file = LevelLoader.textFile(level);
+			try
+			{
+				if (LevelLoader.isKeyed(file))
+				{
+					parse(file);
+					System.out.println(file + " is valid");
+					continue;
+				}
+				LevelData data = LevelLoader.readOldText(file);
+				checkReferences(data, file);
+				PrintWriter out = new PrintWriter(new OutputStreamWriter(
+						new FileOutputStream(file),
+						StandardCharsets.UTF_8));
+				write(data, out);
+				out.close();
+				// Make sure the new file reads back the same
+				parse(file);
+				System.out.println("Converted " + file);
+			}
+			catch (FormatException e)
+			{
+				for (String error : e.getErrors())
+					System.out.println(error);
+				failed = true;
+			}
+			catch (IOException | RuntimeException e)
+			{
+				System.out.println("Could not read " + file + ": " + e);
+				failed = true;
+			}
+		}
+		if (failed)
+			System.exit(1);
+	}
+
+	/**
+	 * Checks that the object numbers of a level in the old format are in
+	 * range, as they can not be converted into ids otherwise
+	 */
+	private static void checkReferences(LevelData level, File file)
+			throws FormatException
+	{
+		ArrayList<String> errors = new ArrayList<String>();
+		LevelData.ObjectData[] objects = level.getLevelObjects();
+		for (int object = 0; object < objects.length; object++)
+		{
+			int[] references = { objects[object].hostItemNo,
+					objects[object].hiddenItemNo, objects[object].toUseItemNo };
+			for (int reference = 0; reference < references.length; reference++)
+			{
+				int other = references[reference];
+				if ((other < -1 || other >= objects.length)
+						&& !(reference == 2 && other == NO_ITEM))
+					errors.add(file + ": object " + object
+							+ " refers to object " + other + " of "
+							+ objects.length);
+			}
+		}
+		if (!errors.isEmpty())
+			throw new FormatException(errors);
+	}
+
+	/**
+	 * A value and where it was written
+	 */
+	private static class Value
+	{
+		private final String text;
+		private final int line, column;
+
+		private Value(String text, int line, int column)
+		{
+			this.text = text;
+			this.line = line;
+			this.column = column;
+		}
+	}
+
+	/**
+	 * Thrown when a level has errors, with every error that was found
+	 */
+	public static class FormatException extends IOException
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final List<String> errors;
+
+		public FormatException(List<String> errors)
+		{
+			super(errors.size() + " error" + (errors.size() == 1 ? "" : "s")
+					+ " in level:\n" + join(errors));
+			this.errors = errors;
+		}
+
+		/**
+		 * Gets every error, each as file:line:column: message
+		 * @return the errors
+		 */
+		public List<String> getErrors()
+		{
+			return errors;
+		}
+
+		private static String join(List<String> errors)
+		{
+			StringBuilder joined = new StringBuilder();
+			for (String error : errors)
+				joined.append(error).append('\n');
+			return joined.toString();
+		}
+	}
+}
@@ -0,0 +1,83 @@
+/**
+ * Prepares levels on a background thread before they are played so that
+ * starting a level does not have to read files or decode images
+ * @author agent
+ * @version October 18, 2026
+ */
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.concurrent.*;
+
+public class LevelPrefetcher
+{
+	private final ExecutorService executor = Executors
+			.newSingleThreadExecutor(new ThreadFactory()
+			{
+				public Thread newThread(Runnable task)
+				{
+					Thread thread = new Thread(task, "Level prefetcher");
+					thread.setDaemon(true);
+					thread.setPriority(Thread.MIN_PRIORITY);
+					return thread;
+				}
+			});
+
+	// Levels that are being or have been prepared but not played yet
+	private final HashMap<Integer, Future<PreparedLevel>> levels =
+			new HashMap<Integer, Future<PreparedLevel>>();
+
+	/**
+	 * Starts preparing a level in the background unless it is already
+	 * prepared
+	 * @param level the level number
+	 */
+	public synchronized void prefetch(final int level)
+	{
+		if (levels.containsKey(level))
+			return;
+		levels.put(level, executor.submit(new Callable<PreparedLevel>()
+		{
+			public PreparedLevel call() throws IOException
+			{
+				return new PreparedLevel(level);
+			}
+		}));
+	}
+
+	/**
+	 * Gets a prepared level to be played, waiting for it if it is still being
+	 * prepared and preparing it right away if it was never prefetched
+	 * A level can only be taken once per prefetch since it is played with
+	 * the objects it was prepared with
+	 * @param level the level number
+	 * @return the prepared level
+	 * @throws IOException if the level could not be read
+	 */
+	public PreparedLevel take(int level) throws IOException
+	{
+		Future<PreparedLevel> prepared;
+		synchronized (this)
+		{
+			prepared = levels.remove(level);
+		}
+		if (prepared == null)
+			return new PreparedLevel(level);
+
+		try
+		{
+			return prepared.get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			return new PreparedLevel(level);
+		}
+		catch (ExecutionException e)
+		{
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw new IOException(e.getCause());
+		}
+	}
+}
@@ -0,0 +1,394 @@
+/**
+ * Plays many levels at the same time without a window to see how the game
+ * rules hold up under volume:
+ * java LevelSimulator [sessions] [steps] [script file]
+ * Without a script every session plays random input, otherwise every
+ * session repeats the script, which has one command per line (left, right,
+ * up, down, pickup, tick, click x y or hover x y)
+ * @author agent
+ * @version October 18, 2026
+ */
+
+import java.awt.Point;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class LevelSimulator
+{
+	private static final int NO_OF_LEVELS = 10;
+	private static final int DEFAULT_SESSIONS = 2000;
+	private static final int DEFAULT_STEPS = 2000;
+
+	// Sessions played one after the other by one task
+	private static final int SESSIONS_PER_TASK = 16;
+
+	// Kinds of input, followed by two numbers for clicks and hovers
+	private static final int LEFT = GameSession.LEFT;
+	private static final int RIGHT = GameSession.RIGHT;
+	private static final int DOWN = GameSession.DOWN;
+	private static final int UP = GameSession.UP;
+	private static final int PICK_UP = 4;
+	private static final int TICK = 5;
+	private static final int CLICK = 6;
+	private static final int HOVER = 7;
+
+	private final LevelData[] levels;
+	private final int steps;
+	private final int[] script;
+
+	// Results of all tasks
+	private final Histogram latencies = new Histogram();
+	private final AtomicLongArray finished = new AtomicLongArray(
+			NO_OF_LEVELS + 1);
+	private final AtomicLongArray played = new AtomicLongArray(
+			NO_OF_LEVELS + 1);
+	private final AtomicLong allocated = new AtomicLong();
+	private int threads;
+
+	public static void main(String[] args) throws IOException
+	{
+		int sessions = args.length > 0 ? Integer.parseInt(args[0])
+				: DEFAULT_SESSIONS;
+		int steps = args.length > 1 ? Integer.parseInt(args[1])
+				: DEFAULT_STEPS;
+		int[] script = args.length > 2 ? readScript(new File(args[2]))
+				: null;
+
+		LevelData[] levels = new LevelData[NO_OF_LEVELS + 1];
+		for (int level = 1; level <= NO_OF_LEVELS; level++)
+			levels[level] = LevelLoader.load(level);
+
+		// Warm up once so that the measured run does not include compiling
+		new LevelSimulator(levels, steps, script).run(NO_OF_LEVELS
+				* SESSIONS_PER_TASK);
+		LevelSimulator simulator = new LevelSimulator(levels, steps, script);
+		long time = simulator.run(sessions);
+		System.out.println(simulator.report(sessions, time));
+	}
+
+	/**
+	 * Creates a simulator
+	 * @param levels the information of every level (starting at index 1)
+	 * @param steps the number of inputs every session receives
+	 * @param script the inputs to repeat, or null for random input
+	 */
+	public LevelSimulator(LevelData[] levels, int steps, int[] script)
+	{
+		this.levels = levels;
+		this.steps = steps;
+		this.script = script;
+	}
+
+	/**
+	 * Plays the given number of sessions, spread evenly over all levels
+	 * @param sessions the number of sessions
+	 * @return the time taken in nanoseconds
+	 */
+	public long run(int sessions)
+	{
+		ForkJoinPool pool = new ForkJoinPool();
+		threads = pool.getParallelism();
+		long start = System.nanoTime();
+		pool.invoke(new SessionTask(0, sessions));
+		long time = System.nanoTime() - start;
+		pool.shutdown();
+		return time;
+	}
+
+	/**
+	 * Plays a range of sessions, splitting it up between threads if it is
+	 * large
+	 */
+	private class SessionTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final int first, last;
+
+		SessionTask(int first, int last)
+		{
+			this.first = first;
+			this.last = last;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if (last - first > SESSIONS_PER_TASK)
+			{
+				int middle = (first + last) >>> 1;
+				invokeAll(new SessionTask(first, middle), new SessionTask(
+						middle, last));
+				return;
+			}
+
+			long allocatedBefore = allocatedBytes();
+			Histogram taskLatencies = new Histogram();
+			for (int session = first; session < last; session++)
+				play(session, taskLatencies);
+			latencies.add(taskLatencies);
+			long allocatedAfter = allocatedBytes();
+			if (allocatedBefore >= 0 && allocatedAfter >= 0)
+				allocated.addAndGet(allocatedAfter - allocatedBefore);
+		}
+	}
+
+	/**
+	 * Plays one session until it is finished or out of input
+	 * @param sessionNo the number of the session
+	 * @param taskLatencies where the time of every step is counted
+	 */
+	private void play(int sessionNo, Histogram taskLatencies)
+	{
+		int level = sessionNo % NO_OF_LEVELS + 1;
+		// Every step takes a tenth of a second of game time
+		LevelClock.ManualTime time = new LevelClock.ManualTime();
+		GameSession session = new GameSession(new PreparedLevel(level,
+				levels[level]), null, time);
+		Random random = new Random(sessionNo);
+		int position = 0;
+
+		for (int step = 0; step < steps && !session.isFinished(); step++)
+		{
+			int kind, x = 0, y = 0;
+			if (script != null)
+			{
+				if (position == script.length)
+					position = 0;
+				kind = script[position];
+				x = script[position + 1];
+				y = script[position + 2];
+				position += 3;
+			}
+			else
+			{
+				// Mostly click on objects so that random play gets somewhere
+				int choice = random.nextInt(20);
+				if (choice < 6)
+					kind = random.nextInt(4);
+				else if (choice < 7)
+					kind = PICK_UP;
+				else
+					kind = choice < 16 ? CLICK : HOVER;
+
+				if (kind >= CLICK)
+				{
+					EObject[] levelObjects = session.getLevelObjects();
+					EObject target = levelObjects[random
+							.nextInt(levelObjects.length)];
+					if (choice < 14 && target.isVisible())
+					{
+						x = target.x + random.nextInt(Math.max(1,
+								target.width));
+						y = target.y + random.nextInt(Math.max(1,
+								target.height));
+					}
+					else
+					{
+						x = random.nextInt(1000);
+						y = random.nextInt(700);
+					}
+				}
+			}
+
+			long start = System.nanoTime();
+			if (kind <= LEFT)
+				session.move(kind);
+			else if (kind == PICK_UP)
+				session.pickUp();
+			else if (kind == CLICK)
+				session.click(new Point(x, y));
+			else if (kind == HOVER)
+				session.hover(new Point(x, y));
+			time.advance(LevelClock.NANOS_PER_TENTH);
+			taskLatencies.record(System.nanoTime() - start);
+		}
+
+		played.incrementAndGet(level);
+		if (session.isFinished())
+			finished.incrementAndGet(level);
+	}
+
+	/**
+	 * Gets the number of bytes the current thread has allocated so far
+	 * @return the number of bytes or -1 if it is unknown
+	 */
+	private static long allocatedBytes()
+	{
+		java.lang.management.ThreadMXBean threads = ManagementFactory
+				.getThreadMXBean();
+		if (threads instanceof com.sun.management.ThreadMXBean)
+			return ((com.sun.management.ThreadMXBean) threads)
+					.getThreadAllocatedBytes(Thread.currentThread().getId());
+		return -1;
+	}
+
+	/**
+	 * Gets a summary of a run
+	 * @param sessions the number of sessions played
+	 * @param time the time taken in nanoseconds
+	 * @return the summary
+	 */
+	public String report(int sessions, long time)
+	{
+		double seconds = time / 1000000000.0;
+		StringBuilder report = new StringBuilder();
+		report.append(String.format("%d sessions, %d steps in %.2f s on %d "
+				+ "threads%n", sessions, latencies.count(), seconds,
+				threads));
+		report.append(String.format("%.0f sessions/s, %.0f steps/s%n",
+				sessions / seconds, latencies.count() / seconds));
+		report.append(String.format(
+				"Step latency: p50 %.2f us, p99 %.2f us, max %.2f us%n",
+				latencies.percentile(0.5) / 1000.0,
+				latencies.percentile(0.99) / 1000.0,
+				latencies.max() / 1000.0));
+		report.append(String.format("Allocation: %.1f MB/s, %.0f bytes/step%n",
+				allocated.get() / seconds / 1000000.0, allocated.get()
+						/ (double) Math.max(1, latencies.count())));
+		for (int level = 1; level <= NO_OF_LEVELS; level++)
+			report.append(String.format("Level %2d: %d of %d escaped%n",
+					level, finished.get(level), played.get(level)));
+		return report.toString();
+	}
+
+	/**
+	 * Reads an input script
+	 * @param file the script file
+	 * @return the kind and two numbers for every command
+	 * @throws FileNotFoundException if the file does not exist
+	 */
+	private static int[] readScript(File file) throws FileNotFoundException
+	{
+		ArrayList<Integer> script = new ArrayList<Integer>();
+		Scanner in = new Scanner(file);
+		while (in.hasNextLine())
+		{
+			Scanner line = new Scanner(in.nextLine());
+			if (!line.hasNext())
+				continue;
+			String command = line.next().toLowerCase();
+			int x = 0, y = 0;
+			int kind;
+			if (command.startsWith("#"))
+				continue;
+			else if (command.equals("left"))
+				kind = LEFT;
+			else if (command.equals("right"))
+				kind = RIGHT;
+			else if (command.equals("up"))
+				kind = UP;
+			else if (command.equals("down"))
+				kind = DOWN;
+			else if (command.equals("pickup"))
+				kind = PICK_UP;
+			else if (command.equals("tick"))
+				kind = TICK;
+			else if (command.equals("click") || command.equals("hover"))
+			{
+				kind = command.equals("click") ? CLICK : HOVER;
+				x = line.nextInt();
+				y = line.nextInt();
+			}
+			else
+			{
+				in.close();
+				throw new IllegalArgumentException("Unknown command: "
+						+ command);
+			}
+			script.add(kind);
+			script.add(x);
+			script.add(y);
+		}
+		in.close();
+		if (script.isEmpty())
+			throw new IllegalArgumentException("Empty script: " + file);
+
+		int[] commands = new int[script.size()];
+		for (int index = 0; index < commands.length; index++)
+			commands[index] = script.get(index);
+		return commands;
+	}
+
+	/**
+	 * Counts step times in buckets that are at most 1/16 wide so that
+	 * percentiles can be found without keeping every time
+	 */
+	private static class Histogram
+	{
+		private static final int SUB_BUCKETS = 16;
+
+		private final long[] counts = new long[64 * SUB_BUCKETS];
+		private long count, max;
+
+		void record(long nanos)
+		{
+			counts[bucket(Math.max(0, nanos))]++;
+			count++;
+			max = Math.max(max, nanos);
+		}
+
+		synchronized void add(Histogram other)
+		{
+			for (int bucket = 0; bucket < counts.length; bucket++)
+				counts[bucket] += other.counts[bucket];
+			count += other.count;
+			max = Math.max(max, other.max);
+		}
+
+		synchronized long count()
+		{
+			return count;
+		}
+
+		synchronized long max()
+		{
+			return max;
+		}
+
+		/**
+		 * Finds the time that the given share of steps was faster than
+		 * @param share the share between 0 and 1
+		 * @return the upper end of the bucket in nanoseconds
+		 */
+		synchronized long percentile(double share)
+		{
+			long target = (long) Math.ceil(share * count);
+			long seen = 0;
+			for (int bucket = 0; bucket < counts.length; bucket++)
+			{
+				seen += counts[bucket];
+				if (seen >= target && seen > 0)
+					return Math.min(max, upperEnd(bucket));
+			}
+			return max;
+		}
+
+		private static int bucket(long nanos)
+		{
+			if (nanos < SUB_BUCKETS)
+				return (int) nanos;
+			int power = 63 - Long.numberOfLeadingZeros(nanos);
+			int sub = (int) (nanos >>> (power - 4)) & (SUB_BUCKETS - 1);
+			return (power - 3) * SUB_BUCKETS + sub;
+		}
+
+		private static long upperEnd(int bucket)
+		{
+			if (bucket < SUB_BUCKETS)
+				return bucket;
+			int power = bucket / SUB_BUCKETS + 3;
+			int sub = bucket % SUB_BUCKETS;
+			return ((long) (SUB_BUCKETS + sub + 1) << (power - 4)) - 1;
+		}
+	}
+}
@@ -0,0 +1,498 @@
+/**
+ * Finds the shortest way to escape a level by trying every order of
+ * clicking objects and using items on them, so that edited level files can
+ * be checked quickly: java LevelSolver [level numbers]
+ * Given the level's objects, only objects the character can walk close
+ * enough to are clicked, objects covered by other objects are still assumed
+ * to be clickable
+ * @author agent
+ * @version October 18, 2026
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+public class LevelSolver
+{
+	private static final int NO_OF_LEVELS = 10;
+
+	// Stops searching levels with too many combinations
+	private static final int MAX_STATES = 2000000;
+
+	// Every object's state is kept in one byte, followed by one byte for
+	// whether the level has been escaped
+	private static final byte IN_INVENTORY = 1;
+	private static final byte GONE = 2; // used up
+	private static final byte VISIBLE = 4;
+	private static final byte USED = 8; // drawing state 3
+
+	private final LevelData.ObjectData[] objects;
+	private final int last;
+
+	// The level's objects and where the character can walk among them, or
+	// null if only the puzzle is searched
+	private final EObject[] levelObjects;
+	private final ReachabilityMap reachabilityMap;
+	private final boolean[] everReachable;
+
+	// Every state found, how it was first reached and where it leads
+	private final ArrayList<byte[]> states = new ArrayList<byte[]>();
+	private final HashMap<StateKey, Integer> stateNumbers =
+			new HashMap<StateKey, Integer>();
+	private int[] parents = new int[64];
+	private int[] parentActions = new int[64];
+	private final ArrayList<int[]> successors = new ArrayList<int[]>();
+
+	private int escape = -1; // the escaped state reached first
+	private boolean complete;
+	private int deadEnds;
+	private int firstDeadEnd = -1;
+
+	/**
+	 * Searches every state of the given level's puzzle
+	 * @param level the level information
+	 */
+	public LevelSolver(LevelData level)
+	{
+		this(level, null);
+	}
+
+	/**
+	 * Searches every state of the given level, only using objects that the
+	 * character can reach
+	 * @param level a prepared copy of the level, which can not be played
+	 *            afterwards
+	 */
+	public LevelSolver(PreparedLevel level)
+	{
+		this(level.getData(), level);
+	}
+
+	private LevelSolver(LevelData level, PreparedLevel prepared)
+	{
+		objects = level.getLevelObjects();
+		last = objects.length - 1;
+		everReachable = new boolean[objects.length];
+		if (prepared != null)
+		{
+			levelObjects = prepared.getLevelObjects();
+			reachabilityMap = new ReachabilityMap(levelObjects, prepared
+					.getBackObjects(), level.getStart());
+		}
+		else
+		{
+			levelObjects = null;
+			reachabilityMap = null;
+		}
+
+		// Hidden objects start invisible, except for walls
+		byte[] start = new byte[objects.length + 1];
+		for (int object = 0; object < objects.length; object++)
+			if (objects[object].hostItemNo == -1
+					|| objects[object].name.equals("Wall"))
+				start[object] = VISIBLE;
+		add(start, -1, -1);
+
+		search();
+		if (complete)
+			findDeadEnds();
+	}
+
+	/**
+	 * Goes through all states in the order they were found, so that every
+	 * state is first reached with the fewest actions
+	 */
+	private void search()
+	{
+		int[] next = new int[2 * objects.length];
+		for (int state = 0; state < states.size(); state++)
+		{
+			if (states.size() > MAX_STATES)
+				return;
+
+			byte[] current = states.get(state);
+			int count = 0;
+			if (current[objects.length] == 0)
+			{
+				showObjects(current);
+				for (int object = 0; object < objects.length; object++)
+				{
+					// Only visible objects in the room can be clicked
+					if ((current[object] & (VISIBLE | IN_INVENTORY | GONE)) != VISIBLE
+							|| !canReach(object))
+						continue;
+					everReachable[object] = true;
+
+					// Click the object without an item selected
+					byte[] clicked = click(current, object);
+					if (clicked != null)
+						next[count++] = add(clicked, state, object);
+
+					// Use the one item that fits on it
+					int item = objects[object].toUseItemNo;
+					if (item >= 0 && !objects[object].isItem
+							&& (current[item] & IN_INVENTORY) != 0)
+						next[count++] = add(use(current, item, object), state,
+								objects.length + object);
+				}
+			}
+			else if (escape < 0)
+				escape = state;
+			successors.add(Arrays.copyOf(next, count));
+		}
+		complete = true;
+	}
+
+	/**
+	 * Shows and hides the level's objects as in the given state, which also
+	 * updates where the character can walk
+	 * @param state the state
+	 */
+	private void showObjects(byte[] state)
+	{
+		if (levelObjects == null)
+			return;
+		for (int object = 0; object < levelObjects.length; object++)
+			if (levelObjects[object].isVisible() != ((state[object] & VISIBLE) != 0))
+				levelObjects[object].changeVisibility();
+	}
+
+	/**
+	 * Checks whether the character can walk close enough to an object to
+	 * click it, or onto it if it is an item
+	 * @param object the object number
+	 * @return whether the object can be reached
+	 */
+	private boolean canReach(int object)
+	{
+		if (reachabilityMap == null)
+			return true;
+		EObject target = levelObjects[object];
+		return reachabilityMap.canClick(target)
+				|| (objects[object].isItem && reachabilityMap
+						.canStandOn(target));
+	}
+
+	/**
+	 * Clicks an object in the room as GameSession does
+	 * @return the new state or null if only the picture changes
+	 */
+	private byte[] click(byte[] current, int object)
+	{
+		LevelData.ObjectData data = objects[object];
+		byte[] next = current.clone();
+		if (data.isItem)
+			next[object] = IN_INVENTORY;
+		else if (data.toUseItemNo == -1)
+			revealSecrets(next, object);
+		return Arrays.equals(next, current) ? null : next;
+	}
+
+	/**
+	 * Uses an item from the inventory on an object as GameSession does
+	 * @return the new state
+	 */
+	private byte[] use(byte[] current, int item, int object)
+	{
+		byte[] next = current.clone();
+		next[item] = GONE;
+		revealSecrets(next, object);
+		if (object == last)
+		{
+			next[object] |= USED;
+			next[objects.length] = 1;
+		}
+		return next;
+	}
+
+	/**
+	 * Reveals the item hidden in an object as EObject.revealSecrets does
+	 */
+	private void revealSecrets(byte[] state, int object)
+	{
+		int hidden = objects[object].hiddenItemNo;
+		if (hidden != -1 && (state[object] & USED) == 0)
+		{
+			state[object] |= USED;
+			state[hidden] ^= VISIBLE;
+		}
+	}
+
+	/**
+	 * Finds the number of a state, adding it if it is new
+	 * @param state the state
+	 * @param parent the state it was reached from
+	 * @param action the action that reached it
+	 * @return the state number
+	 */
+	private int add(byte[] state, int parent, int action)
+	{
+		StateKey key = new StateKey(state);
+		Integer number = stateNumbers.get(key);
+		if (number != null)
+			return number;
+
+		number = states.size();
+		states.add(state);
+		stateNumbers.put(key, number);
+		if (number == parents.length)
+		{
+			parents = Arrays.copyOf(parents, number * 2);
+			parentActions = Arrays.copyOf(parentActions, number * 2);
+		}
+		parents[number] = parent;
+		parentActions[number] = action;
+		return number;
+	}
+
+	/**
+	 * Counts the states from which the level can no longer be escaped, by
+	 * going backwards from every escaped state
+	 */
+	private void findDeadEnds()
+	{
+		// Count the ways into every state
+		int[] firstPredecessor = new int[states.size() + 1];
+		for (int state = 0; state < states.size(); state++)
+			for (int next : successors.get(state))
+				firstPredecessor[next + 1]++;
+		for (int state = 0; state < states.size(); state++)
+			firstPredecessor[state + 1] += firstPredecessor[state];
+		int[] predecessors = new int[firstPredecessor[states.size()]];
+		int[] filled = Arrays.copyOf(firstPredecessor, states.size());
+		for (int state = 0; state < states.size(); state++)
+			for (int next : successors.get(state))
+				predecessors[filled[next]++] = state;
+
+		boolean[] canEscape = new boolean[states.size()];
+		int[] queue = new int[states.size()];
+		int length = 0;
+		for (int state = 0; state < states.size(); state++)
+			if (states.get(state)[objects.length] != 0)
+			{
+				canEscape[state] = true;
+				queue[length++] = state;
+			}
+		for (int index = 0; index < length; index++)
+		{
+			int first = firstPredecessor[queue[index]];
+			int end = firstPredecessor[queue[index] + 1];
+			for (int predecessor = first; predecessor < end; predecessor++)
+				if (!canEscape[predecessors[predecessor]])
+				{
+					canEscape[predecessors[predecessor]] = true;
+					queue[length++] = predecessors[predecessor];
+				}
+		}
+
+		for (int state = 0; state < states.size(); state++)
+			if (!canEscape[state])
+			{
+				deadEnds++;
+				if (firstDeadEnd < 0)
+					firstDeadEnd = state;
+			}
+	}
+
+	/**
+	 * Checks whether the level can be escaped
+	 * @return whether a solution was found
+	 */
+	public boolean isSolvable()
+	{
+		return escape >= 0;
+	}
+
+	/**
+	 * Checks whether every state of the level was searched
+	 * @return false if the level had too many states
+	 */
+	public boolean isComplete()
+	{
+		return complete;
+	}
+
+	/**
+	 * Gets the shortest solution
+	 * @return the actions or null if there is none
+	 */
+	public String[] getSolution()
+	{
+		return escape < 0 ? null : actionsTo(escape);
+	}
+
+	/**
+	 * Gets the number of states from which the level can not be escaped
+	 * any more (all states if there is no solution)
+	 * @return the number of dead ends
+	 */
+	public int getDeadEnds()
+	{
+		return deadEnds;
+	}
+
+	/**
+	 * Gets the shortest way to get stuck
+	 * @return the actions or null if there are no dead ends
+	 */
+	public String[] getDeadEndActions()
+	{
+		return firstDeadEnd < 0 ? null : actionsTo(firstDeadEnd);
+	}
+
+	public int getStates()
+	{
+		return states.size();
+	}
+
+	/**
+	 * Finds the objects that can be interacted with but are never within the
+	 * character's reach while they are visible
+	 * @return the names of the objects
+	 */
+	public ArrayList<String> getUnreachableObjects()
+	{
+		ArrayList<String> unreachable = new ArrayList<String>();
+		if (reachabilityMap == null)
+			return unreachable;
+		for (int object = 0; object < objects.length; object++)
+		{
+			LevelData.ObjectData data = objects[object];
+			boolean interactive = data.isItem || data.toUseItemNo >= 0
+					|| data.hiddenItemNo >= 0 || data.isClickable;
+			if (interactive && !everReachable[object])
+				unreachable.add(name(object));
+		}
+		return unreachable;
+	}
+
+	/**
+	 * Describes the actions that first reached a state
+	 * @param state the state number
+	 * @return a description of every action
+	 */
+	private String[] actionsTo(int state)
+	{
+		int length = 0;
+		for (int step = state; parents[step] >= 0; step = parents[step])
+			length++;
+		String[] actions = new String[length];
+		for (int step = state; parents[step] >= 0; step = parents[step])
+		{
+			int action = parentActions[step];
+			if (action < objects.length)
+				actions[--length] = (objects[action].isItem ? "Pick up "
+						: "Click ") + name(action);
+			else
+			{
+				int object = action - objects.length;
+				actions[--length] = "Use "
+						+ name(objects[object].toUseItemNo) + " on "
+						+ name(object);
+			}
+		}
+		return actions;
+	}
+
+	/**
+	 * Gets the name of an object, or its number if it has no name
+	 */
+	private String name(int object)
+	{
+		if (objects[object].name.trim().isEmpty())
+			return "object " + object;
+		return objects[object].name;
+	}
+
+	/**
+	 * Solves the given levels (or all of them) and prints the solutions
+	 * Exits with status 1 if a level can not be escaped
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		int[] levels;
+		if (args.length == 0)
+		{
+			levels = new int[NO_OF_LEVELS];
+			for (int level = 0; level < NO_OF_LEVELS; level++)
+				levels[level] = level + 1;
+		}
+		else
+		{
+			levels = new int[args.length];
+			for (int level = 0; level < args.length; level++)
+				levels[level] = Integer.parseInt(args[level]);
+		}
+
+		boolean allSolvable = true;
+		long start = System.nanoTime();
+		for (int level : levels)
+		{
+			LevelData data = LevelLoader.load(level);
+			LevelSolver solver = new LevelSolver(new PreparedLevel(level, data));
+			if (!solver.isComplete())
+			{
+				System.out.printf("Level %d (%s): gave up after %d states%n",
+						level, data.getDescription(), solver.getStates());
+				allSolvable = false;
+				continue;
+			}
+			if (!solver.isSolvable())
+			{
+				System.out.printf("Level %d (%s): CAN NOT BE ESCAPED (%d "
+						+ "states)%n", level, data.getDescription(),
+						solver.getStates());
+				allSolvable = false;
+				continue;
+			}
+
+			String[] solution = solver.getSolution();
+			System.out.printf("Level %d (%s): %d actions, %d states, %d dead "
+					+ "ends%n", level, data.getDescription(),
+					solution.length, solver.getStates(), solver.getDeadEnds());
+			for (int action = 0; action < solution.length; action++)
+				System.out.printf("  %2d. %s%n", action + 1, solution[action]);
+			if (solver.getDeadEnds() > 0)
+				System.out.println("  Can get stuck after: "
+						+ Arrays.toString(solver.getDeadEndActions()));
+
+			ArrayList<String> unreachable = solver.getUnreachableObjects();
+			if (!unreachable.isEmpty())
+				System.out.println("  Never within reach: " + unreachable);
+		}
+		System.out.printf("Searched %d levels in %.1f ms%n", levels.length,
+				(System.nanoTime() - start) / 1000000.0);
+		if (!allSolvable)
+			System.exit(1);
+	}
+
+	/**
+	 * Lets byte arrays be compared by their contents in a hash map
+	 */
+	private static class StateKey
+	{
+		private final byte[] state;
+		private final int hash;
+
+		StateKey(byte[] state)
+		{
+			this.state = state;
+			hash = Arrays.hashCode(state);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object other)
+		{
+			return other instanceof StateKey
+					&& Arrays.equals(state, ((StateKey) other).state);
+		}
+	}
+}
@@ -0,0 +1,190 @@
+/**
+ * Finds the shortest walk between two character positions of a level's
+ * reachability map using A*
+ * All arrays are created once and reused by every search, so that clicking
+ * again and again does not create any garbage
+ * @author agent
+ * @version October 18, 2026
+ */
+
+public class PathFinder
+{
+	private final ReachabilityMap map;
+	private final int columns;
+
+	// Cost from the start and previous position of every position, only
+	// valid if the position was seen in the current search
+	private final int[] costs;
+	private final int[] previous;
+	private final int[] seen;
+	private final int[] closed;
+	private int search;
+
+	// Open positions, ordered by estimated total cost
+	private final int[] heap;
+	private final int[] heapCosts;
+	private int heapSize;
+
+	// The positions of the last path found, from the first step to the goal
+	private final int[] path;
+	private int length;
+
+	/**
+	 * Creates a path finder for a level
+	 * @param map where the character can stand in the level
+	 */
+	public PathFinder(ReachabilityMap map)
+	{
+		this.map = map;
+		columns = map.getColumns();
+		int positions = columns * map.getRows();
+		costs = new int[positions];
+		previous = new int[positions];
+		seen = new int[positions];
+		closed = new int[positions];
+		// Every position can be added once for each of its neighbours
+		heap = new int[positions * 4 + 1];
+		heapCosts = new int[positions * 4 + 1];
+		path = new int[positions];
+	}
+
+	/**
+	 * Finds the shortest path between two positions
+	 * @param start the number of the starting position
+	 * @param goal the number of the goal position
+	 * @return the number of steps or -1 if the goal can not be reached
+	 */
+	public int findPath(int start, int goal)
+	{
+		length = 0;
+		if (start < 0 || goal < 0 || !map.isFree(goal)
+				|| !map.isReachable(map.getX(goal), map.getY(goal)))
+			return -1;
+
+		// Start a new search without clearing the arrays
+		search++;
+		heapSize = 0;
+		costs[start] = 0;
+		previous[start] = -1;
+		seen[start] = search;
+		push(start, estimate(start, goal));
+
+		while (heapSize > 0)
+		{
+			int position = pop();
+			if (closed[position] == search)
+				continue;
+			closed[position] = search;
+			if (position == goal)
+				return tracePath(start, goal);
+
+			int column = position % columns;
+			if (column > 0)
+				visit(position, position - 1, goal);
+			if (column < columns - 1)
+				visit(position, position + 1, goal);
+			if (position >= columns)
+				visit(position, position - columns, goal);
+			if (position + columns < costs.length)
+				visit(position, position + columns, goal);
+		}
+		return -1;
+	}
+
+	/**
+	 * Gets the position of a step of the last path found
+	 * @param step the step number, starting at 0
+	 * @return the position number
+	 */
+	public int getStep(int step)
+	{
+		return path[step];
+	}
+
+	/**
+	 * Gets the number of steps of the last path found
+	 * @return the number of steps
+	 */
+	public int getLength()
+	{
+		return length;
+	}
+
+	/**
+	 * Opens a neighbouring position if this is the cheapest way to it
+	 */
+	private void visit(int from, int to, int goal)
+	{
+		if (!map.isFree(to) || closed[to] == search)
+			return;
+		int cost = costs[from] + 1;
+		if (seen[to] == search && costs[to] <= cost)
+			return;
+		seen[to] = search;
+		costs[to] = cost;
+		previous[to] = from;
+		push(to, cost + estimate(to, goal));
+	}
+
+	/**
+	 * Estimates the number of steps between two positions, which is never
+	 * too high as the character only moves sideways or up and down
+	 */
+	private int estimate(int from, int to)
+	{
+		return Math.abs(from % columns - to % columns)
+				+ Math.abs(from / columns - to / columns);
+	}
+
+	/**
+	 * Copies the path ending at the goal from the start
+	 * @return the number of steps
+	 */
+	private int tracePath(int start, int goal)
+	{
+		length = costs[goal];
+		int step = length;
+		for (int position = goal; position != start; position = previous[position])
+			path[--step] = position;
+		return length;
+	}
+
+	private void push(int position, int cost)
+	{
+		int index = heapSize++;
+		while (index > 0)
+		{
+			int parent = (index - 1) / 2;
+			if (heapCosts[parent] <= cost)
+				break;
+			heap[index] = heap[parent];
+			heapCosts[index] = heapCosts[parent];
+			index = parent;
+		}
+		heap[index] = position;
+		heapCosts[index] = cost;
+	}
+
+	private int pop()
+	{
+		int top = heap[0];
+		heapSize--;
+		int position = heap[heapSize];
+		int cost = heapCosts[heapSize];
+		int index = 0;
+		while (index * 2 + 1 < heapSize)
+		{
+			int child = index * 2 + 1;
+			if (child + 1 < heapSize && heapCosts[child + 1] < heapCosts[child])
+				child++;
+			if (heapCosts[child] >= cost)
+				break;
+			heap[index] = heap[child];
+			heapCosts[index] = heapCosts[child];
+			index = child;
+		}
+		heap[index] = position;
+		heapCosts[index] = cost;
+		return top;
+	}
+}
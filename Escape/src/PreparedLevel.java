@@ -0,0 +1,68 @@
+/**
+ * A level that has been read and built, ready to be played
+ * Preparing a level reads its file and decodes all of its images, so it can
+ * be done in the background before the level is needed
+ * @author agent
+ * @version October 18, 2026
+ */
+
+import java.awt.Image;
+import java.io.IOException;
+
+public class PreparedLevel
+{
+	private final int number;
+	private final LevelData data;
+	private final Image background;
+	private final EObject[] backObjects, levelObjects;
+
+	/**
+	 * Reads and builds the given level
+	 * @param number the level number
+	 * @throws IOException if the level could not be read
+	 */
+	public PreparedLevel(int number) throws IOException
+	{
+		this(number, LevelLoader.load(number));
+	}
+
+	/**
+	 * Builds new objects for a level that has already been read, so that it
+	 * can be played several times
+	 * @param number the level number
+	 * @param data the level information
+	 */
+	public PreparedLevel(int number, LevelData data)
+	{
+		this.number = number;
+		this.data = data;
+		background = SpriteCache.getImage(data.getBackgroundName());
+		backObjects = data.createBackObjects();
+		levelObjects = data.createLevelObjects();
+	}
+
+	public int getNumber()
+	{
+		return number;
+	}
+
+	public LevelData getData()
+	{
+		return data;
+	}
+
+	public Image getBackground()
+	{
+		return background;
+	}
+
+	public EObject[] getBackObjects()
+	{
+		return backObjects;
+	}
+
+	public EObject[] getLevelObjects()
+	{
+		return levelObjects;
+	}
+}
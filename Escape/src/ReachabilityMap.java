@@ -0,0 +1,500 @@
+/**
+ * Knows every position the character can walk to in a level, so that moves
+ * and whether an object can be reached are checked without looking at any
+ * objects
+ * Positions lie on a 10 pixel grid lined up with the start position, each
+ * one counts the blocking objects the character would overlap there
+ * Kept up to date as objects appear and disappear
+ * @author agent
+ * @version October 18, 2026
+ */
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+public class ReachabilityMap implements EObject.VisibilityListener
+{
+	public static final int STEP = 10; // ECharacter's MOVE_PIXELS
+	public static final int CHARACTER_SIZE = 90;
+
+	// The character's range reaches this far to the left/top and right/bottom
+	private static final int RANGE_BEFORE = 120;
+	private static final int RANGE_AFTER = 180;
+
+	private final int originX, originY;
+	private final int columns, rows;
+	private final Point start;
+
+	// Blocking objects overlapping the character at every position
+	private final int[] blockers;
+	private final boolean[] reachable;
+	// Number of reachable positions above and to the left of every corner
+	private final int[] reachableSums;
+	private int reachableCount;
+
+	// The area each object was added with, needed to remove it again
+	private final IdentityHashMap<EObject, Rectangle> placed =
+			new IdentityHashMap<EObject, Rectangle>();
+
+	// Reused by every flood fill
+	private final int[] queue;
+
+	/**
+	 * Finds every position that can be reached in a level
+	 * @param levelObjects the array of all usable objects in the level
+	 * @param backObjects the array of all background objects in the level
+	 * @param start the character's starting position
+	 */
+	public ReachabilityMap(EObject[] levelObjects, EObject[] backObjects,
+			Point start)
+	{
+		this(CollisionGrid.WIDTH, CollisionGrid.HEIGHT, start);
+		for (int object = 0; object < backObjects.length; object++)
+			track(backObjects[object]);
+		for (int object = 0; object < levelObjects.length; object++)
+			track(levelObjects[object]);
+		floodFill();
+	}
+
+	/**
+	 * Creates a map of an empty area
+	 * @param width the width of the area
+	 * @param height the height of the area
+	 * @param start the character's starting position
+	 */
+	public ReachabilityMap(int width, int height, Point start)
+	{
+		this.start = new Point(start);
+		originX = Math.floorMod(start.x, STEP);
+		originY = Math.floorMod(start.y, STEP);
+		columns = Math.max(0, (width - CHARACTER_SIZE - originX) / STEP + 1);
+		rows = Math.max(0, (height - CHARACTER_SIZE - originY) / STEP + 1);
+
+		blockers = new int[columns * rows];
+		reachable = new boolean[columns * rows];
+		reachableSums = new int[(columns + 1) * (rows + 1)];
+		queue = new int[columns * rows];
+		floodFill();
+	}
+
+	/**
+	 * Starts keeping track of an object, adding it now if it blocks movement
+	 * @param object the object
+	 */
+	public void track(EObject object)
+	{
+		object.addVisibilityListener(this);
+		if (object.isBlocking())
+			add(object);
+	}
+
+	@Override
+	public void visibilityChanged(EObject object)
+	{
+		if (object.isBlocking())
+		{
+			// Anything behind a new obstacle may have been cut off
+			if (add(object))
+				floodFill();
+		}
+		else
+			remove(object);
+	}
+
+	/**
+	 * Checks whether the map knows about the given character position
+	 * @param character the character's area
+	 * @return whether the position is on the map
+	 */
+	public boolean covers(Rectangle character)
+	{
+		return character.width == CHARACTER_SIZE
+				&& character.height == CHARACTER_SIZE
+				&& Math.floorMod(character.x - originX, STEP) == 0
+				&& Math.floorMod(character.y - originY, STEP) == 0
+				&& column(character.x) >= 0 && column(character.x) < columns
+				&& row(character.y) >= 0 && row(character.y) < rows;
+	}
+
+	/**
+	 * Checks whether the character can stand at a position on the map
+	 * @param character the character's area (see covers)
+	 * @return whether no blocking object is in the way
+	 */
+	public boolean isFree(Rectangle character)
+	{
+		return blockers[row(character.y) * columns + column(character.x)] == 0;
+	}
+
+	/**
+	 * Checks whether the character can walk to a position from the start
+	 * @param x the x position of the character
+	 * @param y the y position of the character
+	 * @return whether the position is reachable
+	 */
+	public boolean isReachable(int x, int y)
+	{
+		if (Math.floorMod(x - originX, STEP) != 0
+				|| Math.floorMod(y - originY, STEP) != 0)
+			return false;
+		int column = column(x);
+		int row = row(y);
+		return column >= 0 && column < columns && row >= 0 && row < rows
+				&& reachable[row * columns + column];
+	}
+
+	/**
+	 * Checks whether some reachable position has the area within the
+	 * character's range, so that it can be clicked
+	 * @param area the area, such as an object
+	 * @return whether the area can be clicked
+	 */
+	public boolean canClick(Rectangle area)
+	{
+		// The range rectangle starts 120 pixels before the character and is
+		// 300 pixels wide
+		return countReachable(area.x - RANGE_AFTER + 1, area.x + area.width
+				+ RANGE_BEFORE - 1, area.y - RANGE_AFTER + 1, area.y
+				+ area.height + RANGE_BEFORE - 1) > 0;
+	}
+
+	/**
+	 * Checks whether some reachable position has the character covering the
+	 * whole area, so that an item there can be picked up
+	 * @param area the area, such as an item
+	 * @return whether the character can stand on the area
+	 */
+	public boolean canStandOn(Rectangle area)
+	{
+		return countReachable(area.x + area.width - CHARACTER_SIZE, area.x,
+				area.y + area.height - CHARACTER_SIZE, area.y) > 0;
+	}
+
+	/**
+	 * Gets the number of positions the character can walk to
+	 * @return the number of positions
+	 */
+	public int getReachableCount()
+	{
+		return reachableCount;
+	}
+
+	/**
+	 * Finds the number of the position the character has at the given
+	 * coordinates
+	 * @param x the x position of the character
+	 * @param y the y position of the character
+	 * @return the position number or -1 if it is not on the map
+	 */
+	public int positionAt(int x, int y)
+	{
+		if (Math.floorMod(x - originX, STEP) != 0
+				|| Math.floorMod(y - originY, STEP) != 0)
+			return -1;
+		int column = column(x);
+		int row = row(y);
+		if (column < 0 || column >= columns || row < 0 || row >= rows)
+			return -1;
+		return row * columns + column;
+	}
+
+	/**
+	 * Finds the position on the map closest to the given coordinates
+	 * @param x the x position of the character
+	 * @param y the y position of the character
+	 * @return the position number or -1 if the map is empty
+	 */
+	public int closestPosition(int x, int y)
+	{
+		if (columns == 0 || rows == 0)
+			return -1;
+		int column = Math.max(0, Math.min(columns - 1, Math.round((x
+				- originX) / (float) STEP)));
+		int row = Math.max(0, Math.min(rows - 1, Math.round((y - originY)
+				/ (float) STEP)));
+		return row * columns + column;
+	}
+
+	/**
+	 * Finds the free position closest to the given coordinates that the
+	 * character can walk to, looking in growing squares around the closest
+	 * position so that a point on an object still leads somewhere
+	 * @param x the x position of the character
+	 * @param y the y position of the character
+	 * @return the position number or -1 if no position can be reached
+	 */
+	public int closestFreePosition(int x, int y)
+	{
+		int closest = closestPosition(x, y);
+		if (closest < 0 || reachable[closest])
+			return closest;
+		int centreColumn = closest % columns;
+		int centreRow = closest / columns;
+		int maxDistance = Math.max(columns, rows);
+		for (int distance = 1; distance < maxDistance; distance++)
+		{
+			// Of the positions on this square, take the nearest to the point
+			int best = -1;
+			long bestSquared = Long.MAX_VALUE;
+			int top = centreRow - distance;
+			int bottom = centreRow + distance;
+			for (int row = Math.max(0, top); row <= Math.min(rows - 1,
+					bottom); row++)
+			{
+				// Rows between the top and bottom only have their two ends
+				int step = row == top || row == bottom ? 1 : 2 * distance;
+				for (int column = centreColumn - distance; column <= centreColumn
+						+ distance; column += step)
+				{
+					if (column < 0 || column >= columns
+							|| !reachable[row * columns + column])
+						continue;
+					long dx = originX + column * STEP - x;
+					long dy = originY + row * STEP - y;
+					if (dx * dx + dy * dy < bestSquared)
+					{
+						bestSquared = dx * dx + dy * dy;
+						best = row * columns + column;
+					}
+				}
+			}
+			if (best >= 0)
+				return best;
+		}
+		return -1;
+	}
+
+	/**
+	 * Checks whether the character can stand at a position
+	 * @param position the position number
+	 * @return whether no blocking object is in the way
+	 */
+	public boolean isFree(int position)
+	{
+		return blockers[position] == 0;
+	}
+
+	public int getX(int position)
+	{
+		return originX + position % columns * STEP;
+	}
+
+	public int getY(int position)
+	{
+		return originY + position / columns * STEP;
+	}
+
+	public int getColumns()
+	{
+		return columns;
+	}
+
+	public int getRows()
+	{
+		return rows;
+	}
+
+	/**
+	 * Adds an object to the count of every position it blocks
+	 * @param object the object
+	 * @return whether a reachable position was blocked
+	 */
+	private boolean add(EObject object)
+	{
+		if (placed.containsKey(object))
+			return false;
+		Rectangle area = object.getBounds();
+		placed.put(object, area);
+		// Objects without a size never overlap the character
+		if (area.isEmpty())
+			return false;
+
+		boolean blockedReachable = false;
+		int lastColumn = lastBlockedColumn(area);
+		int lastRow = lastBlockedRow(area);
+		for (int row = firstBlockedRow(area); row <= lastRow; row++)
+			for (int column = firstBlockedColumn(area); column <= lastColumn; column++)
+			{
+				int position = row * columns + column;
+				blockers[position]++;
+				if (reachable[position])
+					blockedReachable = true;
+			}
+		return blockedReachable;
+	}
+
+	/**
+	 * Removes an object from the count of every position it blocked and
+	 * walks into any position that became free next to a reachable one
+	 * @param object the object
+	 */
+	private void remove(EObject object)
+	{
+		Rectangle area = placed.remove(object);
+		if (area == null || area.isEmpty())
+			return;
+
+		int length = 0;
+		int lastColumn = lastBlockedColumn(area);
+		int lastRow = lastBlockedRow(area);
+		for (int row = firstBlockedRow(area); row <= lastRow; row++)
+			for (int column = firstBlockedColumn(area); column <= lastColumn; column++)
+			{
+				int position = row * columns + column;
+				blockers[position]--;
+				if (blockers[position] == 0 && hasReachableNeighbour(column,
+						row))
+				{
+					reachable[position] = true;
+					queue[length++] = position;
+				}
+			}
+		if (length > 0)
+		{
+			reachableCount += length;
+			spread(length);
+			updateSums();
+		}
+	}
+
+	/**
+	 * Finds every reachable position again, starting at the start position
+	 */
+	private void floodFill()
+	{
+		Arrays.fill(reachable, false);
+		reachableCount = 0;
+		int column = column(start.x);
+		int row = row(start.y);
+		if (column >= 0 && column < columns && row >= 0 && row < rows
+				&& blockers[row * columns + column] == 0)
+		{
+			reachable[row * columns + column] = true;
+			queue[0] = row * columns + column;
+			reachableCount = 1;
+			spread(1);
+		}
+		updateSums();
+	}
+
+	/**
+	 * Marks every free position connected to the queued positions as
+	 * reachable
+	 * @param length the number of queued positions
+	 */
+	private void spread(int length)
+	{
+		for (int index = 0; index < length; index++)
+		{
+			int position = queue[index];
+			int column = position % columns;
+			int row = position / columns;
+			if (column > 0)
+				length = visit(position - 1, length);
+			if (column < columns - 1)
+				length = visit(position + 1, length);
+			if (row > 0)
+				length = visit(position - columns, length);
+			if (row < rows - 1)
+				length = visit(position + columns, length);
+		}
+	}
+
+	private int visit(int position, int length)
+	{
+		if (!reachable[position] && blockers[position] == 0)
+		{
+			reachable[position] = true;
+			reachableCount++;
+			queue[length++] = position;
+		}
+		return length;
+	}
+
+	private boolean hasReachableNeighbour(int column, int row)
+	{
+		int position = row * columns + column;
+		return (column > 0 && reachable[position - 1])
+				|| (column < columns - 1 && reachable[position + 1])
+				|| (row > 0 && reachable[position - columns])
+				|| (row < rows - 1 && reachable[position + columns]);
+	}
+
+	/**
+	 * Recounts the reachable positions above and to the left of every corner
+	 */
+	private void updateSums()
+	{
+		for (int row = 0; row < rows; row++)
+		{
+			int inRow = 0;
+			for (int column = 0; column < columns; column++)
+			{
+				if (reachable[row * columns + column])
+					inRow++;
+				reachableSums[(row + 1) * (columns + 1) + column + 1] =
+						reachableSums[row * (columns + 1) + column + 1] + inRow;
+			}
+		}
+	}
+
+	/**
+	 * Counts the reachable positions with the character's x and y between
+	 * the given values
+	 * @return the number of positions
+	 */
+	private int countReachable(int minX, int maxX, int minY, int maxY)
+	{
+		int firstColumn = Math.max(0, Math.floorDiv(minX - originX + STEP - 1,
+				STEP));
+		int lastColumn = Math.min(columns - 1, Math.floorDiv(maxX - originX,
+				STEP));
+		int firstRow = Math.max(0, Math.floorDiv(minY - originY + STEP - 1,
+				STEP));
+		int lastRow = Math.min(rows - 1, Math.floorDiv(maxY - originY, STEP));
+		if (firstColumn > lastColumn || firstRow > lastRow)
+			return 0;
+		return reachableSums[(lastRow + 1) * (columns + 1) + lastColumn + 1]
+				- reachableSums[firstRow * (columns + 1) + lastColumn + 1]
+				- reachableSums[(lastRow + 1) * (columns + 1) + firstColumn]
+				+ reachableSums[firstRow * (columns + 1) + firstColumn];
+	}
+
+	// The character overlaps an area if its x is between the area's x - 90
+	// and the area's right edge (both excluded), the same goes for y
+	private int firstBlockedColumn(Rectangle area)
+	{
+		return Math.max(0, Math.floorDiv(area.x - CHARACTER_SIZE - originX,
+				STEP) + 1);
+	}
+
+	private int lastBlockedColumn(Rectangle area)
+	{
+		return Math.min(columns - 1, Math.floorDiv(area.x + area.width - 1
+				- originX, STEP));
+	}
+
+	private int firstBlockedRow(Rectangle area)
+	{
+		return Math.max(0, Math.floorDiv(area.y - CHARACTER_SIZE - originY,
+				STEP) + 1);
+	}
+
+	private int lastBlockedRow(Rectangle area)
+	{
+		return Math.min(rows - 1, Math.floorDiv(area.y + area.height - 1
+				- originY, STEP));
+	}
+
+	private int column(int x)
+	{
+		return Math.floorDiv(x - originX, STEP);
+	}
+
+	private int row(int y)
+	{
+		return Math.floorDiv(y - originY, STEP);
+	}
+}
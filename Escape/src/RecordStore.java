@@ -0,0 +1,384 @@
+/**
+ * Keeps the record time and holder of every level on disk so that a crash
+ * can never lose or corrupt the records
+ * New records are appended to a log, one checked line each, and the log is
+ * regularly folded into records.txt, which is written to a new file first
+ * and then renamed over the old one
+ * Lines that were only partly written or damaged are skipped when the
+ * records are read at startup
+ * All writing happens on a background thread
+ * @author agent
+ * @version October 18, 2026
+ */
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Scanner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+public class RecordStore
+{
+	// Shown for levels without any record
+	public static final double NO_TIME = 999.9;
+	public static final String NO_HOLDER = "None";
+
+	// Records appended before the log is folded into the snapshot
+	private static final int COMPACT_AFTER = 16;
+	private static final String CHECKSUM_PREFIX = "#crc ";
+
+	private final int levels;
+	private final File snapshot, log;
+	private final double[] times;
+	private final String[] holders;
+
+	// Whether records.txt was read completely and its checksum matched
+	private boolean snapshotValid;
+
+	// Only used by the writer thread
+	private int appended;
+	private final ExecutorService writer = Executors
+			.newSingleThreadExecutor(new ThreadFactory()
+			{
+				public Thread newThread(Runnable task)
+				{
+					Thread thread = new Thread(task, "Record writer");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+
+	/**
+	 * Reads the records, repairing the files if necessary
+	 * @param directory where the record files are kept
+	 * @param levels the number of levels
+	 */
+	public RecordStore(File directory, int levels)
+	{
+		this.levels = levels;
+		snapshot = new File(directory, "records.txt");
+		log = new File(directory, "records.log");
+		times = new double[levels + 1];
+		holders = new String[levels + 1];
+		for (int level = 1; level <= levels; level++)
+		{
+			times[level] = NO_TIME;
+			holders[level] = NO_HOLDER;
+		}
+
+		readSnapshot();
+		// Records that had not been folded into the snapshot yet, or a
+		// snapshot that is damaged or from before there were checksums
+		if (readLog() > 0 || !snapshotValid)
+			writer.execute(new Runnable()
+			{
+				public void run()
+				{
+					compact();
+				}
+			});
+
+		// Finish writing when the game is closed
+		Runtime.getRuntime().addShutdownHook(new Thread("Record flush")
+		{
+			public void run()
+			{
+				close();
+			}
+		});
+	}
+
+	public synchronized double getTime(int level)
+	{
+		return times[level];
+	}
+
+	public synchronized String getHolder(int level)
+	{
+		return holders[level];
+	}
+
+	/**
+	 * Checks whether a time beats the record of a level
+	 * @param level the level
+	 * @param time the time in seconds
+	 * @return whether it is a new record
+	 */
+	public synchronized boolean isRecord(int level, double time)
+	{
+		return time < times[level];
+	}
+
+	/**
+	 * Sets a new record, which is saved in the background
+	 * @param level the level
+	 * @param time the time in seconds
+	 * @param holder the name of the player
+	 */
+	public void record(final int level, final double time, String holder)
+	{
+		// Tabs and line breaks separate the parts of a log line
+		final String name = holder.replaceAll("\\s", " ").trim();
+		synchronized (this)
+		{
+			if (time >= times[level])
+				return;
+			times[level] = time;
+			holders[level] = name;
+		}
+		writer.execute(new Runnable()
+		{
+			public void run()
+			{
+				append(level, time, name);
+			}
+		});
+	}
+
+	/**
+	 * Waits until everything has been written, after which no more records
+	 * are saved
+	 */
+	public void close()
+	{
+		writer.shutdown();
+		try
+		{
+			writer.awaitTermination(5, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Adds a record to the end of the log and makes sure it is on disk
+	 */
+	private void append(int level, double time, String name)
+	{
+		String entry = level + "\t" + time + "\t" + name;
+		String line = entry + "\t" + checksum(entry) + "\n";
+		try
+		{
+			FileOutputStream out = new FileOutputStream(log, true);
+			try
+			{
+				out.write(line.getBytes(StandardCharsets.UTF_8));
+				out.getChannel().force(true);
+			}
+			finally
+			{
+				out.close();
+			}
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+			System.out.println("Could not save the record.");
+			return;
+		}
+
+		appended++;
+		if (appended >= COMPACT_AFTER)
+			compact();
+	}
+
+	/**
+	 * Writes all records into a new snapshot, replaces the old one with it
+	 * and empties the log
+	 */
+	private void compact()
+	{
+		StringBuilder contents = new StringBuilder();
+		synchronized (this)
+		{
+			for (int level = 1; level <= levels; level++)
+				contents.append(times[level]).append(' ')
+						.append(holders[level]).append('\n');
+		}
+		String checksum = checksum(contents.toString());
+		contents.append(CHECKSUM_PREFIX).append(checksum).append('\n');
+
+		try
+		{
+			replace(snapshot, contents.toString().getBytes(
+					StandardCharsets.UTF_8));
+
+			// Everything in the log is in the snapshot now
+			new FileOutputStream(log).close();
+			appended = 0;
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+			System.out.println("Could not save the records.");
+		}
+	}
+
+	/**
+	 * Reads records.txt, which has one line with a time and a name per
+	 * level, followed by a checksum line
+	 */
+	private void readSnapshot()
+	{
+		String contents;
+		try
+		{
+			contents = new String(Files.readAllBytes(snapshot.toPath()),
+					StandardCharsets.UTF_8).replace("\r\n", "\n");
+		}
+		catch (IOException e)
+		{
+			System.out.println("No record file, starting without records.");
+			return;
+		}
+
+		// Files written by older versions have no checksum
+		int checksumLine = contents.lastIndexOf(CHECKSUM_PREFIX);
+		if (checksumLine >= 0)
+		{
+			String records = contents.substring(0, checksumLine);
+			String checksum = contents.substring(checksumLine
+					+ CHECKSUM_PREFIX.length()).trim();
+			if (!checksum.equals(checksum(records)))
+			{
+				System.out.println("The record file has been corrupted, "
+						+ "recovering what is left.");
+				readLines(records);
+				return;
+			}
+			snapshotValid = readLines(records);
+		}
+		else
+			readLines(contents);
+	}
+
+	/**
+	 * Reads one record per line, skipping any that can not be read
+	 * @return whether every level was read
+	 */
+	private boolean readLines(String contents)
+	{
+		Scanner lines = new Scanner(contents);
+		int level = 0;
+		while (lines.hasNextLine() && level < levels)
+		{
+			level++;
+			Scanner line = new Scanner(lines.nextLine());
+			if (line.hasNextDouble())
+			{
+				double time = line.nextDouble();
+				String holder = line.hasNextLine() ? line.nextLine().trim()
+						: "";
+				set(level, time, holder);
+			}
+			line.close();
+		}
+		lines.close();
+		return level == levels;
+	}
+
+	/**
+	 * Reads every complete and undamaged line of the log
+	 * @return the number of lines found, including damaged ones
+	 */
+	private int readLog()
+	{
+		String contents;
+		try
+		{
+			contents = new String(Files.readAllBytes(log.toPath()),
+					StandardCharsets.UTF_8);
+		}
+		catch (IOException e)
+		{
+			return 0;
+		}
+
+		int count = 0;
+		String[] lines = contents.split("\n");
+		for (String line : lines)
+		{
+			if (line.isEmpty())
+				continue;
+			count++;
+			int lastTab = line.lastIndexOf('\t');
+			if (lastTab < 0 || !line.substring(lastTab + 1).equals(
+					checksum(line.substring(0, lastTab))))
+				continue;
+
+			String[] parts = line.substring(0, lastTab).split("\t", 3);
+			try
+			{
+				int level = Integer.parseInt(parts[0]);
+				double time = Double.parseDouble(parts[1]);
+				if (level >= 1 && level <= levels && time < times[level])
+					set(level, time, parts[2]);
+			}
+			catch (RuntimeException e)
+			{
+				// A line with the right checksum but wrong contents
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Replaces a file so that it either has its old or its new contents
+	 * even if the game crashes, by writing a new file first and renaming it
+	 * @param file the file to replace
+	 * @param contents the new contents
+	 * @throws IOException if the file could not be written
+	 */
+	static void replace(File file, byte[] contents) throws IOException
+	{
+		File temporary = new File(file.getPath() + ".tmp");
+		FileOutputStream out = new FileOutputStream(temporary);
+		try
+		{
+			out.write(contents);
+			out.getChannel().force(true);
+		}
+		finally
+		{
+			out.close();
+		}
+		try
+		{
+			Files.move(temporary.toPath(), file.toPath(),
+					StandardCopyOption.ATOMIC_MOVE,
+					StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch (AtomicMoveNotSupportedException e)
+		{
+			Files.move(temporary.toPath(), file.toPath(),
+					StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	private synchronized void set(int level, double time, String holder)
+	{
+		times[level] = time;
+		holders[level] = holder;
+	}
+
+	/**
+	 * Calculates the checksum of some text
+	 * @return the checksum in hexadecimal
+	 */
+	private static String checksum(String text)
+	{
+		CRC32 crc = new CRC32();
+		crc.update(text.getBytes(StandardCharsets.UTF_8));
+		return Long.toHexString(crc.getValue());
+	}
+}
@@ -0,0 +1,95 @@
+/**
+ * Counts how much drawing the game does so that changes to the painting code
+ * can be measured
+ * With -Descape.renderStats=true a summary is printed every few seconds
+ * @author agent
+ * @version October 18, 2026
+ */
+
+import java.awt.Rectangle;
+
+public class RenderStats
+{
+	private static final long REPORT_INTERVAL = 5000000000L; // 5 seconds
+
+	private final boolean logging = Boolean.getBoolean("escape.renderStats");
+
+	private long frames, pixels, nanos;
+	private long frameStart, windowStart;
+
+	/**
+	 * Call at the start of painting a frame
+	 */
+	public void frameStarted()
+	{
+		frameStart = System.nanoTime();
+		if (windowStart == 0)
+			windowStart = frameStart;
+	}
+
+	/**
+	 * Call at the end of painting a frame
+	 * @param clip the area that was painted
+	 */
+	public void frameFinished(Rectangle clip)
+	{
+		long end = System.nanoTime();
+		frames++;
+		nanos += end - frameStart;
+		if (clip != null)
+			pixels += (long) clip.width * clip.height;
+
+		if (logging && end - windowStart >= REPORT_INTERVAL)
+		{
+			System.out.println(report());
+			reset();
+			windowStart = end;
+		}
+	}
+
+	public long getFrames()
+	{
+		return frames;
+	}
+
+	/**
+	 * Gets the total area painted
+	 * @return the number of pixels
+	 */
+	public long getPixels()
+	{
+		return pixels;
+	}
+
+	/**
+	 * Gets the total time spent painting
+	 * @return the time in nanoseconds
+	 */
+	public long getNanos()
+	{
+		return nanos;
+	}
+
+	/**
+	 * Starts counting from zero again
+	 */
+	public void reset()
+	{
+		frames = 0;
+		pixels = 0;
+		nanos = 0;
+	}
+
+	/**
+	 * Gets a short summary of the counted frames
+	 * @return the summary
+	 */
+	public String report()
+	{
+		if (frames == 0)
+			return "Rendering: no frames";
+		return String.format(
+				"Rendering: %d frames, %d pixels/frame, %.1f us/frame", frames,
+				pixels / frames, nanos / 1000.0 / frames);
+	}
+}
@@ -0,0 +1,356 @@
+/**
+ * Checks that a run really escaped a level in the time it claims, by
+ * playing its input journal again without a window
+ * A journal is first read through once to make sure it could have come
+ * from the game: the game never steps faster than its timer and nothing
+ * happens while the clock is paused
+ * Many runs are checked at once on every processor:
+ * java RunVerifier submissions
+ * where every line of the submissions file has a level, a claimed time in
+ * seconds and a journal file
+ * @author agent
+ * @version October 18, 2026
+ */
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class RunVerifier
+{
+	private static final int NO_OF_LEVELS = 10;
+
+	// Verdicts
+	public static final int ACCEPTED = 0;
+	public static final int DAMAGED = 1;
+	public static final int WRONG_LEVEL = 2;
+	public static final int TOO_FAST = 3;
+	public static final int PLAYED_WHILE_PAUSED = 4;
+	public static final int NOT_ESCAPED = 5;
+	public static final int WRONG_TIME = 6;
+
+	private static final String[] VERDICTS = { "accepted",
+			"damaged journal", "journal of another level",
+			"steps faster than the game", "played while paused",
+			"did not escape", "different time" };
+
+	// Larger journals would be hours of play
+	private static final int MAX_BYTES = 16 << 20;
+	// Runs checked one after the other by one task
+	private static final int RUNS_PER_TASK = 8;
+
+	private final LevelData[] levels;
+
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length == 0)
+		{
+			System.out.println("Usage: java RunVerifier submissions");
+			return;
+		}
+		Submission[] runs = readSubmissions(new File(args[0]));
+
+		LevelData[] levels = new LevelData[NO_OF_LEVELS + 1];
+		for (int level = 1; level <= NO_OF_LEVELS; level++)
+			levels[level] = LevelLoader.load(level);
+		RunVerifier verifier = new RunVerifier(levels);
+
+		ForkJoinPool pool = new ForkJoinPool();
+		long start = System.nanoTime();
+		verifier.verifyAll(runs, pool);
+		double seconds = (System.nanoTime() - start) / 1000000000.0;
+		pool.shutdown();
+
+		int[] counts = new int[VERDICTS.length];
+		for (Submission run : runs)
+		{
+			counts[run.getVerdict()]++;
+			if (run.getVerdict() != ACCEPTED)
+				System.out.printf("%s: %s (level %d, %.2f s claimed)%n",
+						run.getName(), describe(run.getVerdict()), run
+								.getLevel(), run.getTime());
+		}
+		System.out.printf("%d runs checked in %.2f s on %d threads, "
+				+ "%.0f runs/s%n", runs.length, seconds, pool
+				.getParallelism(), runs.length / seconds);
+		for (int verdict = 0; verdict < VERDICTS.length; verdict++)
+			if (counts[verdict] > 0)
+				System.out.printf("%6d %s%n", counts[verdict],
+						describe(verdict));
+	}
+
+	/**
+	 * Creates a verifier
+	 * @param levels the information of every level (starting at index 1)
+	 */
+	public RunVerifier(LevelData[] levels)
+	{
+		this.levels = levels;
+	}
+
+	/**
+	 * Checks many runs at once, setting the verdict of every run
+	 * @param runs the runs
+	 * @param pool the threads to check them on
+	 */
+	public void verifyAll(Submission[] runs, ForkJoinPool pool)
+	{
+		pool.invoke(new VerifyTask(runs, 0, runs.length));
+	}
+
+	/**
+	 * Checks a range of runs, splitting it up between threads if it is
+	 * large
+	 */
+	private class VerifyTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final Submission[] runs;
+		private final int first, last;
+
+		VerifyTask(Submission[] runs, int first, int last)
+		{
+			this.runs = runs;
+			this.first = first;
+			this.last = last;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if (last - first > RUNS_PER_TASK)
+			{
+				int middle = (first + last) >>> 1;
+				invokeAll(new VerifyTask(runs, first, middle), new VerifyTask(
+						runs, middle, last));
+				return;
+			}
+			for (int run = first; run < last; run++)
+				runs[run].verdict = verify(runs[run]);
+		}
+	}
+
+	/**
+	 * Checks one run
+	 */
+	private int verify(Submission run)
+	{
+		if (run.level < 1 || run.level >= levels.length)
+			return WRONG_LEVEL;
+		byte[] bytes = run.journal;
+		if (bytes == null)
+		{
+			try
+			{
+				if (run.file.length() > MAX_BYTES)
+					return DAMAGED;
+				bytes = Files.readAllBytes(run.file.toPath());
+			}
+			catch (IOException e)
+			{
+				return DAMAGED;
+			}
+		}
+		return verify(bytes, run.level, levels[run.level], run.time);
+	}
+
+	/**
+	 * Checks that a journal escapes a level in the claimed time
+	 * @param journal the bytes of the journal
+	 * @param level the level number
+	 * @param data the level information
+	 * @param time the claimed time in seconds
+	 * @return the verdict, ACCEPTED if the run is genuine
+	 */
+	public static int verify(byte[] journal, int level, LevelData data,
+			double time)
+	{
+		try
+		{
+			InputJournal run = InputJournal.read(journal);
+			if (run.getLevel() != level)
+				return WRONG_LEVEL;
+			int verdict = check(run);
+			if (verdict != ACCEPTED)
+				return verdict;
+
+			GameSession session = run.replay(new PreparedLevel(level, data),
+					0);
+			if (!session.isFinished())
+				return NOT_ESCAPED;
+			// Times are shown and saved in hundredths
+			if (Math.abs(session.getClock().getSeconds() - time) > 0.005)
+				return WRONG_TIME;
+			return ACCEPTED;
+		}
+		catch (IOException e)
+		{
+			return DAMAGED;
+		}
+		catch (RuntimeException e)
+		{
+			// Entries cut off or made up
+			return DAMAGED;
+		}
+	}
+
+	/**
+	 * Reads through a journal to make sure the game could have recorded it
+	 * @param journal the journal
+	 * @return the verdict, ACCEPTED if nothing is wrong
+	 */
+	private static int check(InputJournal journal)
+	{
+		journal.rewind();
+		if (!journal.next() || journal.getType() != InputJournal.START)
+			return DAMAGED;
+
+		// The clock runs from the start except while it is paused
+		boolean paused = false;
+		long start = journal.nanoTime();
+		long pausedSince = 0;
+		long pausedNanos = 0;
+		long steps = 0;
+		while (journal.next())
+		{
+			int type = journal.getType();
+			if (type < InputJournal.STEP || type > InputJournal.CLICK_TO_WALK)
+				return DAMAGED;
+
+			if (type == InputJournal.PAUSE && !paused)
+			{
+				paused = true;
+				pausedSince = journal.nanoTime();
+			}
+			else if (type == InputJournal.RESUME && paused)
+			{
+				paused = false;
+				pausedNanos += journal.nanoTime() - pausedSince;
+			}
+			else if (paused && (type == InputJournal.STEP
+					|| type == InputJournal.KEY_PRESS
+					|| type == InputJournal.MOUSE_PRESS))
+				return PLAYED_WHILE_PAUSED;
+			else if (type == InputJournal.STEP)
+			{
+				// The timer and game loop only step once the time of a step
+				// has passed, one step in the whole run is allowed for
+				// timing differences
+				steps++;
+				if (steps > (journal.nanoTime() - start - pausedNanos)
+						/ GameLoop.STEP_NANOS + 1)
+					return TOO_FAST;
+			}
+		}
+		return ACCEPTED;
+	}
+
+	/**
+	 * Describes a verdict
+	 * @param verdict the verdict
+	 * @return the description
+	 */
+	public static String describe(int verdict)
+	{
+		return VERDICTS[verdict];
+	}
+
+	/**
+	 * Reads a submissions file
+	 * @param file the file, with a level, a time and a journal file per line
+	 * @return the runs, whose journals are read when they are checked
+	 * @throws FileNotFoundException if the file does not exist
+	 */
+	private static Submission[] readSubmissions(File file)
+			throws FileNotFoundException
+	{
+		ArrayList<Submission> runs = new ArrayList<Submission>();
+		File folder = file.getAbsoluteFile().getParentFile();
+		Scanner in = new Scanner(file);
+		while (in.hasNextLine())
+		{
+			Scanner line = new Scanner(in.nextLine());
+			if (!line.hasNext() || line.hasNext("#.*"))
+				continue;
+			int level = line.nextInt();
+			double time = line.nextDouble();
+			File journal = new File(line.nextLine().trim());
+			// Journals are found next to the submissions file
+			if (!journal.isAbsolute())
+				journal = new File(folder, journal.getPath());
+			runs.add(new Submission(journal, level, time));
+		}
+		in.close();
+		return runs.toArray(new Submission[runs.size()]);
+	}
+
+	/**
+	 * A run that claims to escape a level in a time
+	 */
+	public static class Submission
+	{
+		private final File file;
+		private final byte[] journal;
+		private final int level;
+		private final double time;
+		private volatile int verdict = -1;
+
+		/**
+		 * Creates a run whose journal is in a file
+		 * @param file the journal file
+		 * @param level the level number
+		 * @param time the claimed time in seconds
+		 */
+		public Submission(File file, int level, double time)
+		{
+			this.file = file;
+			journal = null;
+			this.level = level;
+			this.time = time;
+		}
+
+		/**
+		 * Creates a run whose journal has been read already
+		 * @param journal the bytes of the journal
+		 * @param level the level number
+		 * @param time the claimed time in seconds
+		 */
+		public Submission(byte[] journal, int level, double time)
+		{
+			file = null;
+			this.journal = journal;
+			this.level = level;
+			this.time = time;
+		}
+
+		public String getName()
+		{
+			return file == null ? "Level " + level + " run" : file.getName();
+		}
+
+		public int getLevel()
+		{
+			return level;
+		}
+
+		public double getTime()
+		{
+			return time;
+		}
+
+		/**
+		 * Gets the verdict, once the run has been checked
+		 * @return the verdict, or -1 if the run has not been checked
+		 */
+		public int getVerdict()
+		{
+			return verdict;
+		}
+	}
+}
@@ -0,0 +1,354 @@
+/**
+ * Plays the sound effects of the game, such as picking up an item or
+ * running into a wall, on its own thread
+ * The game hands sounds over through a queue that never waits, so a slow
+ * sound card can never hold up the game, and sounds are dropped instead if
+ * the queue is ever full
+ * A fixed number of sounds can play at once, each louder on the side of the
+ * screen where it happened
+ * Nothing is created while sounds are mixed, everything is allocated once
+ * The sounds are read from the Sounds folder if they are there and made up
+ * from simple tones otherwise
+ * @author agent
+ * @version October 18, 2026
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+public class SoundMixer implements Runnable, GameSession.SoundListener
+{
+	private static final int RATE = 44100;
+	// Sounds playing at once, the oldest one stops for a new one
+	private static final int VOICES = 8;
+	// Mixed at a time, about 6 ms
+	private static final int CHUNK_FRAMES = 256;
+	// Waiting to be played by the sound card, about 23 ms
+	private static final int LINE_FRAMES = 1024;
+	// Must be a power of two
+	private static final int QUEUE_SIZE = 64;
+	private static final float VOLUME = 0.6f;
+
+	private static final String[] FILES = { "PickUp", "Reveal", "Blocked",
+			"Escaped" };
+
+	// Every sound as mono samples
+	private final short[][] samples = new short[FILES.length][];
+
+	// Sounds waiting to be played, added by one game thread and taken by the
+	// mixing thread
+	private final int[] queuedSounds = new int[QUEUE_SIZE];
+	private final float[] queuedPans = new float[QUEUE_SIZE];
+	private final AtomicLong head = new AtomicLong();
+	private final AtomicLong tail = new AtomicLong();
+	private volatile boolean sleeping, unavailable;
+	private volatile Thread thread;
+	private volatile long dropped;
+
+	// Only used by the mixing thread
+	private final int[] voiceSounds = new int[VOICES];
+	private final int[] voicePositions = new int[VOICES];
+	private final float[] voiceLeft = new float[VOICES];
+	private final float[] voiceRight = new float[VOICES];
+	private final int[] mixed = new int[CHUNK_FRAMES * 2];
+	private final byte[] chunk = new byte[CHUNK_FRAMES * 4];
+
+	/**
+	 * Loads or makes up every sound
+	 * @param directory where the sound files are kept
+	 */
+	public SoundMixer(File directory)
+	{
+		for (int sound = 0; sound < FILES.length; sound++)
+		{
+			samples[sound] = load(new File(directory, FILES[sound] + ".wav"));
+			if (samples[sound] == null)
+				samples[sound] = makeUp(sound);
+		}
+		Arrays.fill(voiceSounds, -1);
+	}
+
+	/**
+	 * Starts the mixing thread
+	 */
+	public synchronized void start()
+	{
+		if (thread != null)
+			return;
+		Thread mixer = new Thread(this, "Sound effects");
+		mixer.setDaemon(true);
+		thread = mixer;
+		mixer.start();
+	}
+
+	/**
+	 * Plays a sound, without ever waiting
+	 * Must always be called from the same thread
+	 * @param sound one of the sounds of GameSession.SoundListener
+	 * @param x where on the game screen the sound happened
+	 */
+	public void playSound(int sound, int x)
+	{
+		if (unavailable || sound < 0 || sound >= samples.length)
+			return;
+		long next = tail.get();
+		if (next - head.get() >= QUEUE_SIZE)
+		{
+			dropped++;
+			return;
+		}
+		int slot = (int) next & QUEUE_SIZE - 1;
+		queuedSounds[slot] = sound;
+		queuedPans[slot] = Math.max(-1, Math.min(1, x * 2f
+				/ GameSession.GAME_SIZE.width - 1));
+		tail.set(next + 1);
+
+		// Checked after adding, so the mixer can not miss the sound
+		if (sleeping)
+			LockSupport.unpark(thread);
+	}
+
+	/**
+	 * Gets the number of sounds that were not played because too many came
+	 * at once
+	 * @return the number of sounds
+	 */
+	public long getDropped()
+	{
+		return dropped;
+	}
+
+	@Override
+	public void run()
+	{
+		SourceDataLine line;
+		try
+		{
+			line = AudioSystem.getSourceDataLine(AudioEngine.FORMAT);
+			line.open(AudioEngine.FORMAT, LINE_FRAMES * 4);
+			line.start();
+		}
+		catch (LineUnavailableException e)
+		{
+			noOutput();
+			return;
+		}
+		catch (IllegalArgumentException e)
+		{
+			noOutput();
+			return;
+		}
+
+		while (true)
+		{
+			takeSounds();
+			if (!isPlaying())
+			{
+				// Sleep until a sound is added, checking the queue again
+				// after saying so
+				sleeping = true;
+				while (head.get() == tail.get())
+					LockSupport.park(this);
+				sleeping = false;
+				continue;
+			}
+			mix();
+			// Waits while the line is full
+			line.write(chunk, 0, chunk.length);
+		}
+	}
+
+	private void noOutput()
+	{
+		System.out.println("No sound output, sound effects are off.");
+		unavailable = true;
+	}
+
+	/**
+	 * Starts playing the sounds in the queue
+	 */
+	private void takeSounds()
+	{
+		long first = head.get();
+		long last = tail.get();
+		for (long next = first; next < last; next++)
+		{
+			int slot = (int) next & QUEUE_SIZE - 1;
+			startVoice(queuedSounds[slot], queuedPans[slot]);
+		}
+		head.set(last);
+	}
+
+	/**
+	 * Plays a sound on a free voice, or on the one that has played longest
+	 */
+	private void startVoice(int sound, float pan)
+	{
+		int voice = 0;
+		for (int other = 0; other < VOICES; other++)
+		{
+			if (voiceSounds[other] < 0)
+			{
+				voice = other;
+				break;
+			}
+			if (voicePositions[other] > voicePositions[voice])
+				voice = other;
+		}
+
+		// Sounds in the middle are as loud as on either side
+		double angle = (pan + 1) * Math.PI / 4;
+		voiceSounds[voice] = sound;
+		voicePositions[voice] = 0;
+		voiceLeft[voice] = (float) Math.cos(angle) * VOLUME;
+		voiceRight[voice] = (float) Math.sin(angle) * VOLUME;
+	}
+
+	/**
+	 * Checks whether any voice is playing a sound
+	 */
+	private boolean isPlaying()
+	{
+		for (int voice = 0; voice < VOICES; voice++)
+			if (voiceSounds[voice] >= 0)
+				return true;
+		return false;
+	}
+
+	/**
+	 * Mixes the next chunk of every playing voice into the chunk
+	 */
+	private void mix()
+	{
+		Arrays.fill(mixed, 0);
+		for (int voice = 0; voice < VOICES; voice++)
+		{
+			if (voiceSounds[voice] < 0)
+				continue;
+			short[] sound = samples[voiceSounds[voice]];
+			int position = voicePositions[voice];
+			int frames = Math.min(CHUNK_FRAMES, sound.length - position);
+			float left = voiceLeft[voice];
+			float right = voiceRight[voice];
+			for (int frame = 0; frame < frames; frame++)
+			{
+				int value = sound[position + frame];
+				mixed[frame * 2] += (int) (value * left);
+				mixed[frame * 2 + 1] += (int) (value * right);
+			}
+			voicePositions[voice] = position + frames;
+			if (voicePositions[voice] >= sound.length)
+				voiceSounds[voice] = -1;
+		}
+
+		for (int sample = 0; sample < mixed.length; sample++)
+		{
+			int value = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE,
+					mixed[sample]));
+			chunk[sample * 2] = (byte) value;
+			chunk[sample * 2 + 1] = (byte) (value >> 8);
+		}
+	}
+
+	/**
+	 * Reads a sound file as mono samples at the mixing rate
+	 * @return the samples, or null if there is no such file
+	 */
+	private static short[] load(File file)
+	{
+		if (!file.isFile())
+			return null;
+		try
+		{
+			AudioInputStream in = AudioSystem.getAudioInputStream(file);
+			AudioFormat mono = new AudioFormat(RATE, 16, 1, true, false);
+			if (in.getFormat().getEncoding() != AudioFormat.Encoding.PCM_SIGNED)
+				in = AudioSystem.getAudioInputStream(new AudioFormat(in
+						.getFormat().getSampleRate(), 16, in.getFormat()
+						.getChannels(), true, false), in);
+			in = AudioSystem.getAudioInputStream(mono, in);
+
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int read;
+			while ((read = in.read(buffer)) > 0)
+				bytes.write(buffer, 0, read);
+			in.close();
+
+			byte[] data = bytes.toByteArray();
+			short[] sound = new short[data.length / 2];
+			for (int sample = 0; sample < sound.length; sample++)
+				sound[sample] = (short) (data[sample * 2] & 0xff | data[sample * 2 + 1] << 8);
+			return sound;
+		}
+		catch (IOException e)
+		{
+			System.out.println("Could not load the sound " + file);
+		}
+		catch (UnsupportedAudioFileException e)
+		{
+			System.out.println("Could not load the sound " + file);
+		}
+		catch (IllegalArgumentException e)
+		{
+			System.out.println("Could not load the sound " + file);
+		}
+		return null;
+	}
+
+	/**
+	 * Makes up a sound from tones that fade out
+	 * @param sound the sound
+	 * @return the samples
+	 */
+	private static short[] makeUp(int sound)
+	{
+		switch (sound)
+		{
+		case PICK_UP:
+			// A quick rising blip
+			return tones(new double[] { 660, 990 }, 0.06, 0.5);
+		case REVEAL:
+			return tones(new double[] { 523, 659, 784 }, 0.09, 0.5);
+		case BLOCKED:
+			// A short low thud
+			return tones(new double[] { 98 }, 0.08, 0.8);
+		default:
+			// Escaped
+			return tones(new double[] { 523, 659, 784, 1047 }, 0.14, 0.5);
+		}
+	}
+
+	/**
+	 * Makes a sound that plays some notes one after another
+	 * @param notes the frequency of every note in Hz
+	 * @param seconds the length of every note
+	 * @param volume from 0 to 1
+	 */
+	private static short[] tones(double[] notes, double seconds, double volume)
+	{
+		int noteLength = (int) (RATE * seconds);
+		short[] sound = new short[noteLength * notes.length];
+		for (int note = 0; note < notes.length; note++)
+			for (int sample = 0; sample < noteLength; sample++)
+			{
+				// Starts a little softly to avoid a click, then fades out
+				double fade = Math.min(1, sample / 100.0)
+						* (1 - sample / (double) noteLength);
+				sound[note * noteLength + sample] = (short) (Math.sin(2
+						* Math.PI * notes[note] * sample / RATE)
+						* fade * volume * Short.MAX_VALUE);
+			}
+		return sound;
+	}
+}
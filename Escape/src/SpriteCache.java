@@ -0,0 +1,222 @@
+/**
+ * Process-wide cache of decoded images so that every sprite file is only
+ * decoded once no matter how many objects or levels use it
+ * In atlas mode (-Descape.atlas=true) all sprites of the Objects folder are
+ * packed into one image and handed out as sub-images of it
+ * @author agent
+ * @version October 18, 2026
+ */
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.swing.ImageIcon;
+
+public class SpriteCache
+{
+	// Folder whose sprites are packed into the atlas
+	public static final String ATLAS_FOLDER = "Objects";
+	private static final int ATLAS_WIDTH = 1024;
+
+	private static final ConcurrentHashMap<String, Image> images =
+			new ConcurrentHashMap<String, Image>();
+
+	// Statistics
+	private static final AtomicLong hits = new AtomicLong();
+	private static final AtomicLong misses = new AtomicLong();
+	private static final AtomicLong bytes = new AtomicLong();
+
+	// Atlas information (only set in atlas mode)
+	private static BufferedImage atlas;
+	private static HashMap<String, Rectangle> atlasRegions;
+
+	static
+	{
+		if (Boolean.getBoolean("escape.atlas"))
+			buildAtlas();
+	}
+
+	/**
+	 * Gets the shared image of the given file, decoding it on first use
+	 * @param path the path of the image file
+	 * @return the decoded image
+	 */
+	public static Image getImage(String path)
+	{
+		String key = new File(path).getPath();
+		Image image = images.get(key);
+		if (image != null)
+		{
+			hits.incrementAndGet();
+			return image;
+		}
+
+		// Decode outside of the map so other images can be loaded at the same
+		// time, then keep whichever copy made it in first
+		misses.incrementAndGet();
+		image = new ImageIcon(key).getImage();
+		Image previous = images.putIfAbsent(key, image);
+		if (previous != null)
+			return previous;
+		bytes.addAndGet(sizeOf(image));
+		return image;
+	}
+
+	/**
+	 * Gets the area of the atlas that holds the given sprite
+	 * @param path the path of the image file
+	 * @return the area in the atlas, or null if the sprite is not in it
+	 */
+	public static Rectangle getAtlasRegion(String path)
+	{
+		if (atlasRegions == null)
+			return null;
+		Rectangle region = atlasRegions.get(new File(path).getPath());
+		return region == null ? null : new Rectangle(region);
+	}
+
+	/**
+	 * Gets the atlas image
+	 * @return the atlas, or null if atlas mode is off
+	 */
+	public static BufferedImage getAtlas()
+	{
+		return atlas;
+	}
+
+	public static long getHits()
+	{
+		return hits.get();
+	}
+
+	public static long getMisses()
+	{
+		return misses.get();
+	}
+
+	/**
+	 * Gets the approximate memory used by decoded images
+	 * @return the number of bytes (4 per pixel)
+	 */
+	public static long getBytes()
+	{
+		return bytes.get();
+	}
+
+	/**
+	 * Gets a short summary of the cache statistics
+	 * @return the statistics
+	 */
+	public static String statistics()
+	{
+		return "Sprite cache: " + images.size() + " images, " + hits.get()
+				+ " hits, " + misses.get() + " misses, "
+				+ (bytes.get() / 1024) + " KB decoded"
+				+ (atlas != null ? " (atlas)" : "");
+	}
+
+	/**
+	 * Packs every sprite of the atlas folder into one image using rows of
+	 * sprites sorted by height
+	 */
+	private static void buildAtlas()
+	{
+		File[] files = new File(ATLAS_FOLDER).listFiles();
+		if (files == null)
+			return;
+		Arrays.sort(files);
+
+		// Decode all sprites and sort them by height so rows waste less space
+		Image[] sprites = new Image[files.length];
+		Integer[] order = new Integer[files.length];
+		int count = 0;
+		for (File file : files)
+		{
+			if (file.getName().toLowerCase().endsWith(".png"))
+			{
+				sprites[count] = new ImageIcon(file.getPath()).getImage();
+				files[count] = file;
+				order[count] = count;
+				count++;
+			}
+		}
+		final Image[] decoded = sprites;
+		Arrays.sort(order, 0, count, new Comparator<Integer>()
+		{
+			public int compare(Integer first, Integer second)
+			{
+				return decoded[second].getHeight(null)
+						- decoded[first].getHeight(null);
+			}
+		});
+
+		// Place sprites in rows from left to right
+		HashMap<String, Rectangle> regions = new HashMap<String, Rectangle>();
+		int x = 0, y = 0, rowHeight = 0;
+		for (int index = 0; index < count; index++)
+		{
+			Image sprite = sprites[order[index]];
+			int width = sprite.getWidth(null);
+			int height = sprite.getHeight(null);
+			if (width <= 0 || height <= 0)
+				continue;
+			if (x + width > ATLAS_WIDTH)
+			{
+				x = 0;
+				y += rowHeight;
+				rowHeight = 0;
+			}
+			regions.put(files[order[index]].getPath(), new Rectangle(x, y,
+					width, height));
+			x += width;
+			rowHeight = Math.max(rowHeight, height);
+		}
+		int atlasHeight = Math.max(1, y + rowHeight);
+
+		// Use an image in the screen's format if there is a screen
+		BufferedImage packed;
+		if (GraphicsEnvironment.isHeadless())
+			packed = new BufferedImage(ATLAS_WIDTH, atlasHeight,
+					BufferedImage.TYPE_INT_ARGB);
+		else
+			packed = GraphicsEnvironment.getLocalGraphicsEnvironment()
+					.getDefaultScreenDevice().getDefaultConfiguration()
+					.createCompatibleImage(ATLAS_WIDTH, atlasHeight,
+							Transparency.TRANSLUCENT);
+
+		Graphics g = packed.getGraphics();
+		for (int index = 0; index < count; index++)
+		{
+			String key = files[order[index]].getPath();
+			Rectangle region = regions.get(key);
+			if (region != null)
+			{
+				g.drawImage(sprites[order[index]], region.x, region.y, null);
+				images.put(key, packed.getSubimage(region.x, region.y,
+						region.width, region.height));
+				misses.incrementAndGet();
+			}
+		}
+		g.dispose();
+
+		bytes.addAndGet(sizeOf(packed));
+		atlas = packed;
+		atlasRegions = regions;
+	}
+
+	/**
+	 * Estimates the memory used by a decoded image
+	 * @param image the image
+	 * @return the number of bytes
+	 */
+	private static long sizeOf(Image image)
+	{
+		return 4L * Math.max(0, image.getWidth(null))
+				* Math.max(0, image.getHeight(null));
+	}
+}
@@ -0,0 +1,86 @@
+/**
+ * Checks that records survive being written, folded into the snapshot and
+ * read back by a new store
+ * Run from the Escape folder after compiling src and test together:
+ * java RecordStoreTest
+ * @author agent
+ * @version October 18, 2026
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+
+public class RecordStoreTest
+{
+	private static final int LEVELS = 10;
+
+	public static void main(String[] args) throws IOException
+	{
+		File directory = Files.createTempDirectory("records").toFile();
+		PrintStream console = System.out;
+		ByteArrayOutputStream messages = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(messages, true));
+		try
+		{
+			// More records than are appended before the log is compacted
+			RecordStore store = new RecordStore(directory, LEVELS);
+			for (int round = 0; round < 3; round++)
+				for (int level = 1; level <= LEVELS; level++)
+					store.record(level, 100 - round * 10 - level / 10.0,
+							"P " + round + "\t" + level);
+			store.close();
+			checkRecords(new RecordStore(directory, LEVELS), 2);
+
+			// A few records that are only in the log when the game closes
+			store = new RecordStore(directory, LEVELS);
+			store.record(3, 12.34, "Will");
+			store.record(7, 56.78, "Tilman");
+			store.close();
+			RecordStore readBack = new RecordStore(directory, LEVELS);
+			check(readBack.getTime(3) == 12.34, "level 3 time");
+			check(readBack.getHolder(3).equals("Will"), "level 3 holder");
+			check(readBack.getTime(7) == 56.78, "level 7 time");
+			check(readBack.getHolder(7).equals("Tilman"), "level 7 holder");
+			readBack.close();
+
+			// Reading the log folds it into the snapshot
+			check(new File(directory, "records.log").length() == 0,
+					"log emptied after compacting");
+			new RecordStore(directory, LEVELS).close();
+			check(!messages.toString().contains("corrupted"),
+					"snapshot checksum matches after compacting");
+		}
+		finally
+		{
+			System.setOut(console);
+			for (File file : directory.listFiles())
+				file.delete();
+			directory.delete();
+		}
+		System.out.println("RecordStoreTest passed");
+	}
+
+	/**
+	 * Checks that every level holds the record of the given round
+	 */
+	private static void checkRecords(RecordStore store, int round)
+	{
+		for (int level = 1; level <= LEVELS; level++)
+		{
+			check(store.getTime(level) == 100 - round * 10 - level / 10.0,
+					"time of level " + level);
+			check(store.getHolder(level).equals("P " + round + " " + level),
+					"holder of level " + level);
+		}
+		store.close();
+	}
+
+	private static void check(boolean condition, String what)
+	{
+		if (!condition)
+			throw new AssertionError(what);
+	}
+}
@@ -0,0 +1,104 @@
+/**
+ * Checks that the run verifier only lets through journals the game could
+ * have recorded, stepping no faster than its timer
+ * Run from the Escape folder after compiling src and test together:
+ * java RunVerifierTest
+ * @author agent
+ * @version October 18, 2026
+ */
+
+import java.io.IOException;
+
+public class RunVerifierTest
+{
+	private static final int LEVEL = 1;
+	private static final int STEPS = 300;
+
+	public static void main(String[] args) throws IOException
+	{
+		LevelData data = LevelLoader.load(LEVEL);
+
+		// Every step at the very start of the level
+		LevelClock.ManualTime time = new LevelClock.ManualTime();
+		InputJournal journal = new InputJournal(LEVEL, false, time);
+		for (int step = 0; step < STEPS; step++)
+			journal.record(InputJournal.STEP);
+		check(journal, data, RunVerifier.TOO_FAST, "steps at once");
+
+		// A pause before every step must not give more time
+		time = new LevelClock.ManualTime();
+		journal = new InputJournal(LEVEL, false, time);
+		for (int step = 0; step < STEPS; step++)
+		{
+			journal.record(InputJournal.PAUSE);
+			journal.record(InputJournal.RESUME);
+			journal.record(InputJournal.STEP);
+		}
+		check(journal, data, RunVerifier.TOO_FAST, "pauses between steps");
+
+		// Nor does a long pause, whose time does not count
+		time = new LevelClock.ManualTime();
+		journal = new InputJournal(LEVEL, false, time);
+		journal.record(InputJournal.PAUSE);
+		time.advance(STEPS * GameLoop.STEP_NANOS);
+		journal.record(InputJournal.RESUME);
+		for (int step = 0; step < STEPS; step++)
+			journal.record(InputJournal.STEP);
+		check(journal, data, RunVerifier.TOO_FAST, "steps caught up after "
+				+ "a pause");
+
+		// One step in the whole run may come early, but not one per pause
+		time = new LevelClock.ManualTime();
+		journal = new InputJournal(LEVEL, false, time);
+		for (int step = 0; step < STEPS; step++)
+		{
+			journal.record(InputJournal.STEP);
+			journal.record(InputJournal.PAUSE);
+			time.advance(GameLoop.STEP_NANOS);
+			journal.record(InputJournal.RESUME);
+			time.advance(GameLoop.STEP_NANOS - 1);
+		}
+		check(journal, data, RunVerifier.TOO_FAST, "an early step after "
+				+ "every pause");
+
+		// Steps at the game's pace with pauses in between are fine, but
+		// this run never escapes
+		time = new LevelClock.ManualTime();
+		journal = new InputJournal(LEVEL, false, time);
+		for (int step = 0; step < STEPS; step++)
+		{
+			time.advance(GameLoop.STEP_NANOS);
+			journal.record(InputJournal.STEP);
+			if (step % 50 == 0)
+			{
+				journal.record(InputJournal.PAUSE);
+				time.advance(GameLoop.STEP_NANOS * 7);
+				journal.record(InputJournal.RESUME);
+			}
+		}
+		check(journal, data, RunVerifier.NOT_ESCAPED, "steps at the "
+				+ "game's pace");
+
+		// Playing while paused
+		time = new LevelClock.ManualTime();
+		journal = new InputJournal(LEVEL, false, time);
+		journal.record(InputJournal.PAUSE);
+		time.advance(GameLoop.STEP_NANOS);
+		journal.record(InputJournal.STEP);
+		check(journal, data, RunVerifier.PLAYED_WHILE_PAUSED,
+				"a step while paused");
+
+		System.out.println("RunVerifierTest passed");
+	}
+
+	private static void check(InputJournal journal, LevelData data,
+			int expected, String what)
+	{
+		int verdict = RunVerifier.verify(journal.toByteArray(), LEVEL, data,
+				0);
+		if (verdict != expected)
+			throw new AssertionError(what + ": " + RunVerifier.describe(
+					verdict) + " instead of " + RunVerifier.describe(
+					expected));
+	}
+}